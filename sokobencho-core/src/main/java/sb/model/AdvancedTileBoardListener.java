@@ -1,11 +1,11 @@
-package sb.view;
+package sb.model;
 
 import sb.model.misc.Vector;
 
 /**
- * Created by timo on 11.09.15.
+ * Listener informed about the changes of an {@link AdvancedTileBoardModel}, usually a view displaying the game
  */
-public interface AdvancedTileBoardView {
+public interface AdvancedTileBoardListener {
 
 	/**
 	 * Send information that the tile at the given position has changed
@@ -29,6 +29,20 @@ public interface AdvancedTileBoardView {
 	 */
 	void levelCompleted();
 
+	/**
+	 * Send information that a batch of moves has been applied at once, instead of the updates of the single moves.
+	 * By default the whole level is repainted.
+	 *
+	 * @param completed Is the level finished by the moves?
+	 */
+	default void movesApplied(boolean completed) {
+
+		repaintLevel();
+		if (completed) {
+			levelCompleted();
+		}
+	}
+
 	/**
 	 * Send information that there is a new message to display
 	 */
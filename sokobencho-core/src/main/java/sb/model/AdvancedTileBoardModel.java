@@ -1,8 +1,8 @@
 package sb.model;
 
+import sb.model.misc.Direction;
 import sb.model.misc.Vector;
 import sb.model.moveable.Event;
-import sb.view.AdvancedTileBoardView;
 
 import java.util.List;
 
@@ -22,24 +22,36 @@ public interface AdvancedTileBoardModel<T, M> {
 	String getMessage();
 
 	/**
-	 * Register a new view for displaying the game
+	 * Register a new listener, e.g. a view for displaying the game
 	 *
-	 * @param view
+	 * @param listener
 	 */
-	void registerView(AdvancedTileBoardView view);
+	void registerListener(AdvancedTileBoardListener listener);
 
 	/**
-	 * Unregister a previously registered view
+	 * Unregister a previously registered listener
 	 *
-	 * @param view
+	 * @param listener
 	 */
-	void unregisterView(AdvancedTileBoardView view);
+	void unregisterListener(AdvancedTileBoardListener listener);
 
 	/**
 	 * Load the next level.
 	 */
 	void nextLevel();
 
+	/**
+	 * Reload the current level in order to reset it
+	 */
+	void resetLevel();
+
+	/**
+	 * Move the player one tile into movement direction
+	 *
+	 * @param movement
+	 */
+	void movePlayer(Direction movement);
+
 	/**
 	 * Returns the tile at the given position
 	 *
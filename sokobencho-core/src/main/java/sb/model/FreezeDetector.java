@@ -0,0 +1,178 @@
+package sb.model;
+
+import sb.model.bitboard.Bitboard;
+import sb.model.misc.Direction;
+
+/**
+ * Detects boxes that can never be pushed again. A box is frozen if it is blocked on both axes, either by cells it
+ * can never be pushed onto or the player can never stand on, or by other boxes and rocks that are frozen themselves.
+ * A frozen box that is not on a target can never be moved onto one, so the level cannot be solved anymore once more
+ * boxes are lost this way than there are boxes to spare.
+ * <p>
+ * The detector works on any model that provides a {@link Board}, so the game and the solvers share it. It only looks
+ * at the moveables around the pushed box and does not allocate, so it can run after every push.
+ */
+public class FreezeDetector {
+
+	/**
+	 * The cell based view of a level the detector works on (see {@link sb.model.misc.Cell})
+	 */
+	public interface Board {
+
+		boolean isPushable(int cell);
+
+		boolean isBox(int cell);
+
+		boolean isTarget(int cell);
+
+		/**
+		 * Can a box on the given cell never be pushed onto any target?
+		 *
+		 * @param cell
+		 * @return
+		 */
+		boolean isDeadSquare(int cell);
+
+		/**
+		 * Can a box or rock ever be moved onto the given cell in the given direction, no matter where the other
+		 * moveables are?
+		 *
+		 * @param cell
+		 * @param movement
+		 * @return
+		 */
+		boolean isEverPassableForHeavy(int cell, Direction movement);
+
+		/**
+		 * Can the player ever stand on the given cell, no matter where the moveables are?
+		 *
+		 * @param cell
+		 * @return
+		 */
+		boolean isEverPassableForPlayer(int cell);
+	}
+
+	/**
+	 * One direction of each axis
+	 */
+	private static final Direction[] AXES = {Direction.O, Direction.S};
+
+	private final Board board;
+
+	/**
+	 * Pushables that are assumed to be frozen while their neighbours are checked, which ends cyclic checks
+	 */
+	private final long[] assumedFrozen;
+
+	/**
+	 * The cells set in {@link #assumedFrozen} in the order they were set
+	 */
+	private final int[] assumedCells;
+
+	private int assumedCount;
+
+	/**
+	 * Number of boxes off target that are assumed to be frozen
+	 */
+	private int frozenOffTarget;
+
+	/**
+	 * @param board
+	 * @param cellCount The upper bound of all cell indices of the board
+	 */
+	public FreezeDetector(Board board, int cellCount) {
+
+		this.board = board;
+		this.assumedFrozen = Bitboard.create(cellCount);
+		this.assumedCells = new int[cellCount];
+	}
+
+	/**
+	 * Checks whether the box that has just been pushed onto the given cell makes the level unsolvable, because it
+	 * is on a dead square or frozen together with too many boxes off target.
+	 *
+	 * @param cell
+	 * @param spareBoxes Number of boxes exceeding the number of targets
+	 * @return
+	 */
+	public boolean isDeadlocked(int cell, int spareBoxes) {
+
+		if (!board.isBox(cell)) {
+			return false;
+		}
+		int lostBoxes = board.isDeadSquare(cell) ? 1 : countFrozenOffTarget(cell);
+		return lostBoxes > spareBoxes;
+	}
+
+	/**
+	 * Returns the number of boxes off target that are frozen together with the pushable on the given cell, or 0 if
+	 * that pushable is not frozen.
+	 *
+	 * @param cell
+	 * @return
+	 */
+	public int countFrozenOffTarget(int cell) {
+
+		frozenOffTarget = 0;
+		boolean frozen = isFrozen(cell);
+		for (int i = 0; i < assumedCount; i++) {
+			Bitboard.clear(assumedFrozen, assumedCells[i]);
+		}
+		assumedCount = 0;
+		return frozen ? frozenOffTarget : 0;
+	}
+
+	/**
+	 * Is the pushable on the given cell blocked on both axes? If not, all assumptions made while checking it are
+	 * dropped again.
+	 *
+	 * @param cell
+	 * @return
+	 */
+	private boolean isFrozen(int cell) {
+
+		int assumedBefore = assumedCount;
+		int frozenOffTargetBefore = frozenOffTarget;
+		Bitboard.set(assumedFrozen, cell);
+		assumedCells[assumedCount++] = cell;
+		if (board.isBox(cell) && !board.isTarget(cell)) {
+			frozenOffTarget++;
+		}
+
+		for (Direction axis : AXES) {
+			if (!isBlocked(cell, axis) || !isBlocked(cell, axis.getInverse())) {
+				while (assumedCount > assumedBefore) {
+					Bitboard.clear(assumedFrozen, assumedCells[--assumedCount]);
+				}
+				frozenOffTarget = frozenOffTargetBefore;
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Can the pushable on the given cell never be pushed into the given direction?
+	 *
+	 * @param cell
+	 * @param direction
+	 * @return
+	 */
+	private boolean isBlocked(int cell, Direction direction) {
+
+		int to = cell + direction.getOffset();
+		int from = cell - direction.getOffset();
+		if (!board.isEverPassableForHeavy(to, direction) || !board.isEverPassableForPlayer(from)) {
+			return true;
+		}
+		return isFrozenPushable(to) || isFrozenPushable(from);
+	}
+
+	private boolean isFrozenPushable(int cell) {
+
+		if (Bitboard.get(assumedFrozen, cell)) {
+			return true;
+		}
+		return board.isPushable(cell) && isFrozen(cell);
+	}
+}
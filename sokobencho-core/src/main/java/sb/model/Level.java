@@ -0,0 +1,1211 @@
+package sb.model;
+
+import sb.model.bitboard.Bitboard;
+import sb.model.misc.Cell;
+import sb.model.misc.Direction;
+import sb.model.misc.Pair;
+import sb.model.misc.Vector;
+import sb.model.misc.ZobristHash;
+import sb.model.moveable.Box;
+import sb.model.moveable.Event;
+import sb.model.moveable.Moveable;
+import sb.model.moveable.Player;
+import sb.model.moveable.Pushable;
+import sb.model.moveable.Rock;
+import sb.model.tile.CrackedFloor;
+import sb.model.tile.EmptyPassage;
+import sb.model.tile.Rutting;
+import sb.model.tile.Target;
+import sb.model.tile.Teleporter;
+import sb.model.tile.Tile;
+import sb.model.tile.Wall;
+import sb.model.tile.doormechanism.Button;
+import sb.model.tile.doormechanism.ButtonDoorGroup;
+import sb.model.tile.doormechanism.ButtonDoorGroupManager;
+import sb.model.tile.doormechanism.ButtonDoorGroupType;
+import sb.model.tile.doormechanism.Door;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.IntFunction;
+
+/**
+ * The model of the sokobencho game
+ */
+public class Level implements AdvancedTileBoardModel {
+
+	/**
+	 * Upper limit of rows a level can have
+	 */
+	private static final int MAX_ROWS = 20;
+
+	/**
+	 * Push distance of cells from which a box can never be pushed onto a target (see {@link #getPushDistance(int, int)})
+	 */
+	public static final int UNREACHABLE = Short.MAX_VALUE;
+
+	/**
+	 * A box used to ask tiles whether boxes can pass them
+	 */
+	private static final Box PROBE_BOX = new Box(new Vector(0, 0));
+
+	/**
+	 * Upper limit of columns a level can have
+	 */
+	private static final int MAX_COLS = 30;
+
+	/**
+	 * The position of every cell. Positions never change, so all levels share them.
+	 */
+	private static final Vector[] POSITIONS = createPositions();
+
+	/**
+	 * A ordered list of levelfile paths, shared by all levels
+	 */
+	private static final List<URL> LEVEL_LIST = initLevelList();
+
+	/**
+	 * The layouts of the level files loaded so far, by URL. A layout is read and analysed by the first level loading
+	 * it and then shared by all levels. Layouts are added without locking, so two levels loading a file for the first
+	 * time at once may both read it, but only one layout is kept.
+	 */
+	private static final ConcurrentMap<String, Layout> LAYOUTS = new ConcurrentHashMap<>();
+
+	/**
+	 * The number of the currently loaded level from the list
+	 */
+	int curLevelIndex;
+
+	/**
+	 * Actual width of the level
+	 */
+	private int levelWidth;
+
+	/**
+	 * Actual height of the level
+	 */
+	private int levelHeight;
+
+	/**
+	 * A list of attached listeners, e.g. views to display the game
+	 */
+	private List<AdvancedTileBoardListener> listeners;
+
+	/**
+	 * The one and only player controllable object
+	 */
+	private Player player;
+
+	/**
+	 * The cell of the player (see {@link Cell})
+	 */
+	private int playerCell;
+
+	/**
+	 * This array of tiles represents one level. It is indexed by cell (see {@link Cell}) and the level is framed by walls.
+	 */
+	private Tile[] map;
+
+	/**
+	 * A list of all targets that have to be filled by boxes in order to finish this level
+	 */
+	private List<Target> targets;
+
+	/**
+	 * All pushables of this level, indexed by cell
+	 */
+	private Pushable[] pushables;
+
+	/**
+	 * Floor cells from which a box can never reach any target, as a bitboard indexed by cell. Shared with the layout
+	 * of the level file, never modified.
+	 */
+	private long[] deadSquares;
+
+	/**
+	 * For every target in ascending order of its cell, the minimal number of pushes to move a box from each cell onto
+	 * it. Flat, indexed by target index times the number of cells plus the cell. Shared with the layout of the level
+	 * file, never modified.
+	 */
+	private short[] pushDistances;
+
+	/**
+	 * Number of targets of the loaded level
+	 */
+	private int targetCount;
+
+	/**
+	 * Doors that can never open, as a bitboard indexed by cell. Shared with the layout of the level file, never
+	 * modified.
+	 */
+	private long[] closedDoors;
+
+	/**
+	 * Number of boxes and rocks of the loaded level
+	 */
+	private int pushableCount;
+
+	/**
+	 * Number of boxes exceeding the number of targets
+	 */
+	private int spareBoxes;
+
+	/**
+	 * Detects pushes after which the level cannot be solved anymore
+	 */
+	private FreezeDetector freezeDetector;
+
+	/**
+	 * Zobrist hash of the current state, kept up to date by the level and its tiles
+	 */
+	private ZobristHash hash;
+
+	/**
+	 * The door manager is used to open and close doors
+	 */
+	private ButtonDoorGroupManager doorManager;
+
+	/**
+	 * The teleporters of the loaded level, paired by their identifying char
+	 */
+	private Map<Character, Pair<Teleporter>> teleporters;
+
+	/**
+	 * The moveable that was moved by the latest moveable event
+	 */
+	private Moveable eventMoveable;
+
+	/**
+	 * Cell the moveable was moved from by the latest moveable event
+	 */
+	private int eventOldCell;
+
+	/**
+	 * Cell the moveable was moved to by the latest moveable event
+	 */
+	private int eventNewCell;
+
+	/**
+	 * A message for the player
+	 */
+	private String message;
+
+	/**
+	 * Is a batch of moves being applied? Then the single moves are not broadcast.
+	 */
+	private boolean batch;
+
+	/**
+	 * Create a new empty model.
+	 */
+	public Level() {
+
+		listeners = new ArrayList<>();
+		doorManager = new ButtonDoorGroupManager();
+		teleporters = new HashMap<>();
+		targets = new ArrayList<>();
+		hash = new ZobristHash();
+
+		int cellCount = Cell.count(MAX_ROWS);
+		map = new Tile[cellCount];
+		pushables = new Pushable[cellCount];
+		freezeDetector = new FreezeDetector(new DetectorBoard(), cellCount);
+		curLevelIndex = 0;
+	}
+
+	private static Vector[] createPositions() {
+
+		Vector[] positions = new Vector[Cell.count(MAX_ROWS)];
+		for (int cell = 0; cell < positions.length; cell++) {
+			positions[cell] = Cell.toVector(cell);
+		}
+		return positions;
+	}
+
+	/**
+	 * Loads the level list from the resources and extracts the level paths.
+	 *
+	 * @return A list of URLs to the level files in playing order
+	 */
+	private static List<URL> initLevelList() {
+
+		ClassLoader classLoader = Level.class.getClassLoader();
+		InputStream levelList = classLoader.getResourceAsStream("levels.txt");
+		BufferedReader reader = new BufferedReader(new InputStreamReader(levelList));
+		String line;
+		List<URL> levels = new ArrayList<>();
+		try {
+			while ((line = reader.readLine()) != null) {
+				URL levelUrl = classLoader.getResource(line);
+				if (levelUrl != null) {
+					levels.add(levelUrl);
+				}
+			}
+		} catch (IOException e) {
+			e.printStackTrace();
+			System.out.println("Could not read level file!");
+		}
+		return Collections.unmodifiableList(levels);
+	}
+
+	/**
+	 * Load a new level from file into this model. The file must contain a rectangular 2D-representation of the map.
+	 * It is only read and analysed by the first level loading it, see {@link #LAYOUTS}.
+	 *
+	 * @param levelUrl The file to load
+	 */
+	private void loadLevel(URL levelUrl) throws Exception {
+
+		doorManager.clear();
+		eventMoveable = null;
+		targets.clear();
+		Arrays.fill(pushables, null);
+		teleporters.clear();
+		String key = levelUrl.toString();
+		Layout layout = LAYOUTS.get(key);
+		String[] lines = layout != null ? layout.lines : readLines(levelUrl);
+
+		Tile[] tmpMap = new Tile[map.length];
+		int maxLineWidth = 0;
+		int iLine = 0;
+		for (String line : lines) {
+			int lineWidth = MAX_COLS < line.length() ? MAX_COLS : line.length();
+			if (lineWidth > maxLineWidth) {
+				maxLineWidth = lineWidth;
+			}
+			for (int i = 0; i < lineWidth; i++) {
+				char c = line.charAt(i);
+
+				// Wall
+				if (c == '#')
+					addWall(tmpMap, i, iLine);
+					// Passage
+				else if (c == ' ')
+					addPassage(tmpMap, i, iLine);
+					// Target
+				else if (c == '.')
+					addTarget(tmpMap, i, iLine);
+					// Box
+				else if (c == '$')
+					addBox(i, iLine);
+					// Player
+				else if (c == '@')
+					addPlayer(i, iLine);
+					// Target with box
+				else if (c == '*')
+					addTargetWithBox(tmpMap, i, iLine);
+					// Target with player
+				else if (c == '+')
+					addTargetWithPlayer(tmpMap, i, iLine);
+					// Rock
+				else if (c == 'R')
+					addRock(i, iLine);
+					// Cracked floor
+				else if (Character.isDigit(c))
+					addCrackedFloor(tmpMap, i, iLine, c);
+					// Rutting
+				else if (c == 'N' || c == 'O' || c == 'S' || c == 'W')
+					addRutting(tmpMap, i, iLine, c);
+					// OR-Type door
+				else if (c == 'A' || c == 'B' || c == 'C')
+					addDoor(tmpMap, i, iLine, c, ButtonDoorGroupType.OR);
+					// OR-Type button
+				else if (c == 'a' || c == 'b' || c == 'c')
+					addButton(tmpMap, i, iLine, c, ButtonDoorGroupType.OR);
+					// PARITY-Type door
+				else if (c == 'D' || c == 'E' || c == 'F')
+					addDoor(tmpMap, i, iLine, c, ButtonDoorGroupType.PARITY);
+					// PARITY-Type button
+				else if (c == 'd' || c == 'e' || c == 'f')
+					addButton(tmpMap, i, iLine, c, ButtonDoorGroupType.PARITY);
+					// Player teleporter
+				else if (c == 'T' || c == 'U' || c == 'V')
+					addTeleporter(tmpMap, iLine, i, c, Teleporter.Type.PLAYER);
+					// Object teleporter
+				else if (c == 'X' || c == 'Y' || c == 'Z')
+					addTeleporter(tmpMap, iLine, i, c, Teleporter.Type.OBJECT);
+			}
+			iLine++;
+			if (iLine >= MAX_ROWS) {
+				break;
+			}
+		}
+
+		levelWidth = maxLineWidth;
+		levelHeight = iLine;
+
+		if (!Teleporter.checkPairs(teleporters)) {
+			throw new Exception("Not all teleporters do have a counterpart!");
+		}
+
+		// Copy tmpMap to map to fill empty fields with passages and frame the level with walls.
+		Wall padding = new Wall();
+		for (int cell = 0; cell < map.length; cell++) {
+			int x = Cell.x(cell);
+			int y = Cell.y(cell);
+			if (x < 0 || x >= levelWidth || y < 0 || y >= levelHeight) {
+				map[cell] = padding;
+			} else {
+				map[cell] = tmpMap[cell];
+				if (map[cell] == null) {
+					addPassage(map, x, y);
+				}
+			}
+		}
+		playerCell = Cell.of(player.getPosition());
+		initHash();
+		countPushables();
+
+		// The tables only depend on the layout, so they are computed once and shared
+		if (layout == null) {
+			computeClosedDoors();
+			computePushDistances();
+			computeDeadSquares();
+			LAYOUTS.putIfAbsent(key, new Layout(lines, closedDoors, pushDistances, targetCount, deadSquares));
+		} else {
+			closedDoors = layout.closedDoors;
+			pushDistances = layout.pushDistances;
+			targetCount = layout.targetCount;
+			deadSquares = layout.deadSquares;
+		}
+	}
+
+	/**
+	 * Reads the lines of a level file, at most as many as a level can have rows.
+	 *
+	 * @param levelUrl
+	 * @return
+	 */
+	private static String[] readLines(URL levelUrl) throws Exception {
+
+		List<String> lines = new ArrayList<>();
+		try (BufferedReader reader = new BufferedReader(new InputStreamReader(levelUrl.openStream()))) {
+			String line;
+			while (lines.size() < MAX_ROWS && (line = reader.readLine()) != null) {
+				lines.add(line);
+			}
+		} catch (IOException e) {
+			throw new Exception("Could not read from file " + levelUrl.getFile() + "!");
+		}
+		return lines.toArray(new String[0]);
+	}
+
+	/**
+	 * Compute the hash of the freshly loaded level and bind the tiles to it
+	 */
+	private void initHash() {
+
+		hash.clear();
+		hash.toggle(ZobristHash.Feature.PLAYER, playerCell);
+		for (int cell = 0; cell < map.length; cell++) {
+			if (Cell.x(cell) >= 0 && Cell.x(cell) < levelWidth && Cell.y(cell) >= 0 && Cell.y(cell) < levelHeight) {
+				map[cell].bind(hash, cell);
+			}
+			if (pushables[cell] != null) {
+				hashPushable(pushables[cell], cell);
+			}
+		}
+	}
+
+	/**
+	 * Add the given pushable at the given cell to the hash, or remove it from the hash
+	 *
+	 * @param pushable
+	 * @param cell
+	 */
+	private void hashPushable(Pushable pushable, int cell) {
+
+		hash.toggle(pushable.getClass() == Rock.class ? ZobristHash.Feature.ROCK : ZobristHash.Feature.BOX, cell);
+	}
+
+	/**
+	 * Counts the pushables and the boxes that are not needed to fill all targets
+	 */
+	private void countPushables() {
+
+		pushableCount = 0;
+		int boxCount = 0;
+		for (Pushable pushable : pushables) {
+			if (pushable != null) {
+				pushableCount++;
+				if (pushable.getClass() == Box.class) {
+					boxCount++;
+				}
+			}
+		}
+		spareBoxes = boxCount - targets.size();
+	}
+
+	/**
+	 * Marks the doors that can never open, because their group needs more pressed buttons than there are pushables.
+	 */
+	private void computeClosedDoors() {
+
+		closedDoors = Bitboard.create(map.length);
+		for (ButtonDoorGroup group : doorManager.getGroups()) {
+			if (!group.canEverOpen(pushableCount)) {
+				for (Door door : group.getDoors()) {
+					Bitboard.set(closedDoors, Cell.of(door.getPos()));
+				}
+			}
+		}
+	}
+
+	/**
+	 * Computes the push distances to every target, ignoring all other moveables. Starting at the target, pushes are
+	 * followed backwards: a box may have been pushed onto a cell from a neighbour if the tile lets boxes enter in that
+	 * direction and the player can stand behind the neighbour.
+	 */
+	private void computePushDistances() {
+
+		targetCount = 0;
+		for (Tile tile : map) {
+			if (tile instanceof Target) {
+				targetCount++;
+			}
+		}
+		pushDistances = new short[targetCount * map.length];
+		Arrays.fill(pushDistances, (short) UNREACHABLE);
+		int[] queue = new int[map.length];
+		int offset = 0;
+		for (int target = 0; target < map.length; target++) {
+			if (!(map[target] instanceof Target)) {
+				continue;
+			}
+			pushDistances[offset + target] = 0;
+			queue[0] = target;
+			int tail = 1;
+			for (int head = 0; head < tail; head++) {
+				int cell = queue[head];
+				tail = addPredecessors(cell, cell, offset, queue, tail);
+
+				// A box pushed onto the linked object teleporter may have been teleported here
+				if (map[cell] instanceof Teleporter && ((Teleporter) map[cell]).getType() == Teleporter.Type.OBJECT) {
+					int entered = Cell.of(((Teleporter) map[cell]).getTarget().getPosition());
+					tail = addPredecessors(entered, cell, offset, queue, tail);
+				}
+			}
+			offset += map.length;
+		}
+	}
+
+	/**
+	 * Sets the distance of all cells a box can be pushed from onto the entered cell, if they have none yet, and
+	 * enqueues them.
+	 *
+	 * @param entered The cell the box is pushed onto
+	 * @param landed  The cell the box ends up on
+	 * @param offset  The start of the distances of the target in {@link #pushDistances}
+	 * @param queue
+	 * @param tail
+	 * @return The new tail of the queue
+	 */
+	private int addPredecessors(int entered, int landed, int offset, int[] queue, int tail) {
+
+		for (Direction direction : Direction.values()) {
+			if (direction == Direction.NONE) {
+				continue;
+			}
+			int from = entered - direction.getOffset();
+			int behind = from - direction.getOffset();
+			if (pushDistances[offset + from] == UNREACHABLE && isEverPassableForHeavy(entered, direction) && isEverPassableForPlayer(from)
+					&& isEverPassableForPlayer(behind)) {
+				pushDistances[offset + from] = (short) (pushDistances[offset + landed] + 1);
+				queue[tail++] = from;
+			}
+		}
+		return tail;
+	}
+
+	/**
+	 * Marks all floor cells from which a box can never be pushed onto any target, even without any other moveables.
+	 * Needs the push distances.
+	 */
+	private void computeDeadSquares() {
+
+		deadSquares = Bitboard.create(map.length);
+		for (int cell = 0; cell < map.length; cell++) {
+			if (!isEverPassableForPlayer(cell)) {
+				continue;
+			}
+			boolean dead = true;
+			for (int target = 0; target < targetCount && dead; target++) {
+				dead = pushDistances[target * map.length + cell] == UNREACHABLE;
+			}
+			if (dead) {
+				Bitboard.set(deadSquares, cell);
+			}
+		}
+	}
+
+	/**
+	 * Can a box or rock ever be moved onto the given cell in the given direction, no matter where the other
+	 * moveables are? Walls, ruttings, broken floors and doors that can never open are respected, all other doors
+	 * are assumed to open eventually.
+	 *
+	 * @param cell
+	 * @param movement
+	 * @return
+	 */
+	private boolean isEverPassableForHeavy(int cell, Direction movement) {
+
+		if (map[cell] instanceof Door) {
+			return !Bitboard.get(closedDoors, cell);
+		}
+		return map[cell].isPassable(PROBE_BOX, movement);
+	}
+
+	/**
+	 * Can the player ever stand on the given cell, no matter where the moveables are?
+	 *
+	 * @param cell
+	 * @return
+	 */
+	private boolean isEverPassableForPlayer(int cell) {
+
+		return !(map[cell] instanceof Wall) && !Bitboard.get(closedDoors, cell);
+	}
+
+	private void addWall(Tile[] map, int x, int y) {
+
+		map[Cell.of(x, y)] = new Wall();
+	}
+
+	private void addPassage(Tile[] map, int x, int y) {
+
+		map[Cell.of(x, y)] = new EmptyPassage();
+	}
+
+	private void addTarget(Tile[] map, int x, int y) {
+
+		Target target = new Target(false);
+		map[Cell.of(x, y)] = target;
+		targets.add(target);
+	}
+
+	private void addBox(int x, int y) {
+
+		Box box = new Box(new Vector(x, y));
+		pushables[Cell.of(x, y)] = box;
+	}
+
+	private void addPlayer(int x, int y) {
+
+		player = new Player(new Vector(x, y));
+	}
+
+	private void addTargetWithBox(Tile[] map, int x, int y) {
+
+		addBox(x, y);
+
+		Target target = new Target(true);
+		map[Cell.of(x, y)] = target;
+		targets.add(target);
+	}
+
+	private void addTargetWithPlayer(Tile[] map, int x, int y) {
+
+		addPlayer(x, y);
+
+		addTarget(map, x, y);
+	}
+
+	private void addRock(int x, int y) {
+
+		Rock rock = new Rock(new Vector(x, y));
+		pushables[Cell.of(x, y)] = rock;
+	}
+
+	private void addCrackedFloor(Tile[] map, int x, int y, char c) {
+
+		map[Cell.of(x, y)] = new CrackedFloor(Integer.valueOf(String.valueOf(c)));
+	}
+
+	private void addRutting(Tile[] map, int x, int y, char c) {
+
+		map[Cell.of(x, y)] = new Rutting(Direction.getDirection(String.valueOf(c)));
+	}
+
+	private void addDoor(Tile[] map, int x, int y, char c, ButtonDoorGroupType parity) {
+
+		Door door = new Door(new Vector(x, y));
+		map[Cell.of(x, y)] = door;
+		doorManager.addDoor(c, door, parity);
+	}
+
+	private void addButton(Tile[] map, int x, int y, char c, ButtonDoorGroupType type) {
+
+		Button button = new Button();
+		map[Cell.of(x, y)] = button;
+		doorManager.addButton(c, button, type);
+	}
+
+	private void addTeleporter(Tile[] map, int y, int x, char c, Teleporter.Type type) {
+
+		map[Cell.of(x, y)] = new Teleporter(c, type, new Vector(x, y), teleporters);
+	}
+
+	/**
+	 * Load the next level from the level list.
+	 * End the game if there is no level left or if there was an error:
+	 * <ol>
+	 * <li>If the finished level was the last one, broadcast this info.</li>
+	 * <li>If this method is called again afterwards, broadcast quit signal.</li>
+	 * </ol>
+	 */
+	@Override public void nextLevel() {
+
+		if (curLevelIndex == LEVEL_LIST.size()) {
+			broadcastGameFinished();
+			curLevelIndex++;
+			return;
+		}
+
+		if (curLevelIndex > LEVEL_LIST.size()) {
+			broadcastQuit();
+			return;
+		}
+
+		URL levelUrl = LEVEL_LIST.get(curLevelIndex);
+		try {
+			loadLevel(levelUrl);
+
+			message = "Good luck!";
+			curLevelIndex++;
+
+			broadcastRepaintLevel();
+		} catch (Exception e) {
+			System.out.println("Could not read level '" + levelUrl.getFile() + "'!");
+
+			broadcastGameFinished();
+		}
+
+	}
+
+	/**
+	 * Load the level with the given number, counted from 1 like {@link #getCurrentLevelIndex()}.
+	 * If it cannot be read, the game is finished as by {@link #nextLevel()}.
+	 *
+	 * @param levelNumber
+	 */
+	public void selectLevel(int levelNumber) {
+
+		if (levelNumber < 1 || levelNumber > LEVEL_LIST.size()) {
+			throw new IllegalArgumentException("There is no level " + levelNumber);
+		}
+		curLevelIndex = levelNumber - 1;
+		nextLevel();
+	}
+
+	/**
+	 * Reload the current level in order to reset it
+	 */
+	@Override public void resetLevel() {
+
+		URL levelUrl = LEVEL_LIST.get(curLevelIndex - 1);
+		try {
+			loadLevel(levelUrl);
+
+			message = "Good luck!";
+
+			broadcastRepaintLevel();
+		} catch (Exception e) {
+			System.out.println("Could not read level '" + levelUrl.getFile() + "'!");
+
+			broadcastGameFinished();
+		}
+	}
+
+	/**
+	 * Move the player one tile into movement direction
+	 *
+	 * @param movement
+	 */
+	@Override public void movePlayer(Direction movement) {
+
+		step(movement);
+	}
+
+	/**
+	 * Applies a sequence of moves in LURD notation at once, e.g. to replay a solution. Upper and lower case letters
+	 * are treated alike. The moves are not broadcast one by one, instead the registered listeners are informed once
+	 * about all of them, and the player is not warned about deadlocks. Applying stops at the first move that is not
+	 * possible and at the move completing the level.
+	 *
+	 * @param lurd
+	 * @return
+	 */
+	public MoveResult applyMoves(CharSequence lurd) {
+
+		return applyMoves(lurd.length(), i -> Direction.getDirection(lurd.charAt(i)));
+	}
+
+	/**
+	 * Applies a sequence of moves at once like {@link #applyMoves(CharSequence)}. The moves are given by the ordinals
+	 * of their directions N, O, S and W.
+	 *
+	 * @param directions
+	 * @return
+	 */
+	public MoveResult applyMoves(byte[] directions) {
+
+		return applyMoves(directions.length, i -> Direction.fromOrdinal(directions[i]));
+	}
+
+	/**
+	 * Applies a sequence of moves as a batch and informs the registered listeners about it, if any move was applied
+	 * at all.
+	 *
+	 * @param length Number of moves
+	 * @param moves  Returns the direction of the move with the given index
+	 * @return
+	 */
+	private MoveResult applyMoves(int length, IntFunction<Direction> moves) {
+
+		int applied = 0;
+		int pushes = 0;
+		int illegalMove = -1;
+		boolean completed = checkTargets();
+		batch = true;
+		try {
+			for (int i = 0; i < length && !completed; i++) {
+				Step step = step(moves.apply(i));
+				if (step == Step.BLOCKED) {
+					illegalMove = i;
+					break;
+				}
+				applied++;
+				if (step == Step.PUSHED) {
+					pushes++;
+					completed = checkTargets();
+				}
+			}
+		} finally {
+			batch = false;
+		}
+
+		boolean levelCompleted = completed;
+		if (applied > 0) {
+			listeners.forEach(listener -> listener.movesApplied(levelCompleted));
+		}
+		return new MoveResult(applied, pushes, illegalMove, completed, hash.getValue());
+	}
+
+	/**
+	 * Moves the player one tile into movement direction and broadcasts the changes unless a batch is applied.
+	 *
+	 * @param movement
+	 * @return Whether the player has walked, pushed or not moved at all
+	 */
+	private Step step(Direction movement) {
+
+		if (movement == Direction.NONE) {
+			return Step.BLOCKED;
+		}
+
+		int oldCell = playerCell;
+		int newCell = oldCell + movement.getOffset();
+		int pushCell = newCell + movement.getOffset();
+
+		Step step = Step.WALKED;
+
+		// Is there a pushable at the new position?
+		if (pushables[newCell] != null && map[newCell].isPassable(player, movement)) {
+			if (pushables[pushCell] != null) {
+				// Two pushables cannot be pushed
+				broadcastMessageUpdate("I am not strong enough to push more than one!");
+				return Step.BLOCKED;
+			} else {
+				// No second pushable behind the first. Can it be pushed?
+				if (map[pushCell].isPassable(pushables[newCell], movement)) {
+
+					// Move the moveable and broadcast movement and tile changes
+					Pushable pushable = pushables[newCell];
+					pushables[newCell] = null;
+					hashPushable(pushable, newCell);
+					pushable.setPosition(POSITIONS[pushCell]);
+
+					if (map[newCell].leave(pushable))
+						broadcastTileUpdate(POSITIONS[newCell]);
+					if (map[pushCell].walkBy(pushable))
+						broadcastTileUpdate(POSITIONS[pushCell]);
+
+					// The pushable may have been teleported by the tile
+					int landingCell = Cell.of(pushable.getPosition());
+					if (pushables[landingCell] != null) {
+						// The pushable replaces the one that was standing on its landing cell
+						hashPushable(pushables[landingCell], landingCell);
+					}
+					pushables[landingCell] = pushable;
+					hashPushable(pushable, landingCell);
+					broadcastNewMoveableEvent(newCell, landingCell, pushable);
+
+					// Move the player and broadcast movement and tile changes
+					movePlayerTo(oldCell, newCell);
+					step = Step.PUSHED;
+
+					// Tell the player right away if the box can never be moved onto a target again
+					if (!batch && freezeDetector.isDeadlocked(landingCell, spareBoxes)) {
+						broadcastMessageUpdate("This level is unsolvable now! Press R to reset.");
+					}
+				} else {
+					broadcastMessageUpdate("Something is blocking the way!");
+					return Step.BLOCKED;
+				}
+			}
+		} else {
+			if (map[newCell].isPassable(player, movement)) {
+
+				// Move player and broadcast tile changes
+				movePlayerTo(oldCell, newCell);
+			} else {
+				broadcastMessageUpdate("I can't walk there!");
+				step = Step.BLOCKED;
+			}
+		}
+
+		// Update doors and broadcast changes
+		List<Vector> updatedDoorsPos = updateDoors();
+		for (int i = 0; i < updatedDoorsPos.size(); i++) {
+			broadcastTileUpdate(updatedDoorsPos.get(i));
+		}
+
+		// Level complete? Broadcast it! A batch checks this itself.
+		if (!batch && checkTargets()) {
+			broadcastLevelComplete();
+		}
+		return step;
+	}
+
+	/**
+	 * Move the player to a neighbour cell and broadcast movement and tile changes
+	 *
+	 * @param oldCell
+	 * @param newCell
+	 */
+	private void movePlayerTo(int oldCell, int newCell) {
+
+		player.setPosition(POSITIONS[newCell]);
+		if (map[oldCell].leave(player))
+			broadcastTileUpdate(POSITIONS[oldCell]);
+		if (map[newCell].walkBy(player))
+			broadcastTileUpdate(POSITIONS[newCell]);
+
+		// The player may have been teleported by the tile
+		hash.toggle(ZobristHash.Feature.PLAYER, playerCell);
+		playerCell = Cell.of(player.getPosition());
+		hash.toggle(ZobristHash.Feature.PLAYER, playerCell);
+
+		broadcastPlayerUpdate();
+		broadcastMessageUpdate("");
+	}
+
+	/**
+	 * Are all targets filled with boxes?
+	 *
+	 * @return
+	 */
+	private boolean checkTargets() {
+
+		for (int i = 0; i < targets.size(); i++) {
+			if (!targets.get(i).isFilled()) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Check all door mechanisms to open or close doors
+	 *
+	 * @return A list of positions of the doors that changed their state. The list is reused by the next call.
+	 */
+	private List<Vector> updateDoors() {
+
+		List<Vector> updatedDoorsPos = doorManager.updateDoors();
+		return updatedDoorsPos;
+	}
+
+	/**
+	 * Informs all registered listeners about a tile update.
+	 * This and the other broadcasts of single moves are skipped while a batch of moves is applied.
+	 *
+	 * @param pos Position of the updated tile
+	 */
+	private void broadcastTileUpdate(Vector pos) {
+
+		if (batch) {
+			return;
+		}
+		for (int i = 0; i < listeners.size(); i++) {
+			listeners.get(i).updateTile(pos);
+		}
+	}
+
+	/**
+	 * Registers a new moveable event and informs all registered listeners about it
+	 */
+	private void broadcastNewMoveableEvent(int oldCell, int newCell, Moveable moveable) {
+
+		eventMoveable = moveable;
+		eventOldCell = oldCell;
+		eventNewCell = newCell;
+		if (!batch) {
+			listeners.forEach(listener -> listener.updateMoveable());
+		}
+	}
+
+	/**
+	 * Informs all registered listeners about a player movement.
+	 */
+	private void broadcastPlayerUpdate() {
+
+		if (batch) {
+			return;
+		}
+		listeners.forEach(listener -> listener.updatePlayer());
+	}
+
+	/**
+	 * Changes the current message and informs all registered listeners about it.
+	 */
+	private void broadcastMessageUpdate(String newMessage) {
+
+		message = newMessage;
+		if (!batch) {
+			listeners.forEach(listener -> listener.updateMessage());
+		}
+	}
+
+	/**
+	 * Informs all registered listeners that they have to render a new level.
+	 */
+	private void broadcastRepaintLevel() {
+
+		listeners.forEach(listener -> listener.repaintLevel());
+	}
+
+	/**
+	 * Informs all registered listeners that the last level has been finished.
+	 */
+	private void broadcastGameFinished() {
+
+		listeners.forEach(listener -> listener.gameFinished());
+	}
+
+	/**
+	 * Tells all listeners to quit the game
+	 */
+	private void broadcastQuit() {
+
+		listeners.forEach(listener -> listener.quit());
+	}
+
+	/**
+	 * Informs all registered listeners that the level is finished.
+	 */
+	private void broadcastLevelComplete() {
+
+		listeners.forEach(listener -> listener.levelCompleted());
+	}
+
+	@Override public void registerListener(AdvancedTileBoardListener listener) {
+
+		listeners.add(listener);
+	}
+
+	@Override public void unregisterListener(AdvancedTileBoardListener listener) {
+
+		listeners.remove(listener);
+	}
+
+	@Override public int getLevelWidth() {
+
+		return levelWidth;
+	}
+
+	@Override public int getLevelHeight() {
+
+		return levelHeight;
+	}
+
+	public Tile getTile(Vector pos) {
+
+		return map[Cell.of(pos)];
+	}
+
+	/**
+	 * Returns a 64-bit hash of the current state of the level. It covers the positions of the player, boxes and
+	 * rocks, the steadyness of cracked floors, the open doors and the blocked teleporters.
+	 * Equal states have equal hashes, so it can be used to find duplicate states cheaply.
+	 *
+	 * @return
+	 */
+	public long getStateHash() {
+
+		return hash.getValue();
+	}
+
+	public ButtonDoorGroupManager getDoorManager() {
+
+		return doorManager;
+	}
+
+	@Override public Vector getPlayerPos() {
+
+		return player.getPosition();
+	}
+
+	@Override public List<Moveable> getMoveables() {
+
+		List<Moveable> moveables = new ArrayList<>();
+		for (Pushable pushable : pushables) {
+			if (pushable != null) {
+				moveables.add(pushable);
+			}
+		}
+		return moveables;
+	}
+
+	@Override public Event getLatestMoveableEvent() {
+
+		return new Event<>(POSITIONS[eventOldCell], POSITIONS[eventNewCell], eventMoveable);
+	}
+
+	@Override public String getMessage() {
+
+		return message;
+	}
+
+	@Override public int getCurrentLevelIndex() {
+
+		return curLevelIndex;
+	}
+
+	/**
+	 * Returns the number of levels in the level list
+	 *
+	 * @return
+	 */
+	public int getLevelCount() {
+
+		return LEVEL_LIST.size();
+	}
+
+	/**
+	 * Can a box on the given cell never be pushed onto any target? Computed once per level file.
+	 *
+	 * @param cell See {@link Cell}
+	 * @return
+	 */
+	public boolean isDeadSquare(int cell) {
+
+		return Bitboard.get(deadSquares, cell);
+	}
+
+	/**
+	 * Returns the number of targets of the loaded level
+	 *
+	 * @return
+	 */
+	public int getTargetCount() {
+
+		return targetCount;
+	}
+
+	/**
+	 * Returns the minimal number of pushes to move a box from the given cell onto the given target, if there were no
+	 * other moveables in the level. Doors that may open are assumed to be open. Computed once per level
+	 * file.
+	 *
+	 * @param target Index of the target, the targets are numbered in ascending order of their cells
+	 * @param cell   See {@link Cell}
+	 * @return The distance, or {@link #UNREACHABLE} if the box can never get there
+	 */
+	public int getPushDistance(int target, int cell) {
+
+		return pushDistances[target * map.length + cell];
+	}
+
+	/**
+	 * Gives the freeze detector access to the cells of this level
+	 */
+	private class DetectorBoard implements FreezeDetector.Board {
+
+		@Override public boolean isPushable(int cell) {
+
+			return pushables[cell] != null;
+		}
+
+		@Override public boolean isBox(int cell) {
+
+			return pushables[cell] != null && pushables[cell].getClass() == Box.class;
+		}
+
+		@Override public boolean isTarget(int cell) {
+
+			return map[cell] instanceof Target;
+		}
+
+		@Override public boolean isDeadSquare(int cell) {
+
+			return Level.this.isDeadSquare(cell);
+		}
+
+		@Override public boolean isEverPassableForHeavy(int cell, Direction movement) {
+
+			return Level.this.isEverPassableForHeavy(cell, movement);
+		}
+
+		@Override public boolean isEverPassableForPlayer(int cell) {
+
+			return Level.this.isEverPassableForPlayer(cell);
+		}
+	}
+
+	/**
+	 * The immutable data of a level file: its lines and the tables derived from its tiles, which do not depend on
+	 * where the moveables are
+	 */
+	private static class Layout {
+
+		private final String[] lines;
+
+		private final long[] closedDoors;
+
+		private final short[] pushDistances;
+
+		private final int targetCount;
+
+		private final long[] deadSquares;
+
+		Layout(String[] lines, long[] closedDoors, short[] pushDistances, int targetCount, long[] deadSquares) {
+
+			this.lines = lines;
+			this.closedDoors = closedDoors;
+			this.pushDistances = pushDistances;
+			this.targetCount = targetCount;
+			this.deadSquares = deadSquares;
+		}
+	}
+
+	/**
+	 * The outcome of a single move of the player
+	 */
+	private enum Step {
+		WALKED,
+		PUSHED,
+		BLOCKED
+	}
+}
@@ -0,0 +1,83 @@
+package sb.model;
+
+/**
+ * The outcome of a batch of moves applied by {@link Level#applyMoves(CharSequence)}
+ */
+public class MoveResult {
+
+	private final int moveCount;
+
+	private final int pushCount;
+
+	private final int illegalMove;
+
+	private final boolean completed;
+
+	private final long stateHash;
+
+	/**
+	 * @param moveCount   Number of moves applied
+	 * @param pushCount   Number of those moves that pushed a box or rock
+	 * @param illegalMove Index of the first move that could not be applied, or -1
+	 * @param completed   Is the level complete afterwards?
+	 * @param stateHash   Hash of the final state
+	 */
+	MoveResult(int moveCount, int pushCount, int illegalMove, boolean completed, long stateHash) {
+
+		this.moveCount = moveCount;
+		this.pushCount = pushCount;
+		this.illegalMove = illegalMove;
+		this.completed = completed;
+		this.stateHash = stateHash;
+	}
+
+	public int getMoveCount() {
+
+		return moveCount;
+	}
+
+	public int getPushCount() {
+
+		return pushCount;
+	}
+
+	/**
+	 * Returns the index of the first move that could not be applied. The moves from there on have been skipped.
+	 *
+	 * @return The index, or -1 if all moves were legal
+	 */
+	public int getIllegalMove() {
+
+		return illegalMove;
+	}
+
+	public boolean isLegal() {
+
+		return illegalMove < 0;
+	}
+
+	/**
+	 * Is the level complete after the moves? The moves after the one completing the level have been skipped.
+	 *
+	 * @return
+	 */
+	public boolean isCompleted() {
+
+		return completed;
+	}
+
+	/**
+	 * Returns the Zobrist hash of the final state, see {@link Level#getStateHash()}
+	 *
+	 * @return
+	 */
+	public long getStateHash() {
+
+		return stateHash;
+	}
+
+	@Override public String toString() {
+
+		return moveCount + " moves, " + pushCount + " pushes" + (completed ? ", completed" : "") + (illegalMove < 0 ? "" : ", illegal move at " + illegalMove);
+	}
+}
@@ -0,0 +1,166 @@
+package sb.model.bitboard;
+
+import sb.model.misc.Cell;
+
+/**
+ * Static helpers for bitboards. A bitboard is a long[] holding one bit per cell (see {@link Cell}),
+ * so every long of the array represents one row of the level.
+ */
+public final class Bitboard {
+
+	private Bitboard() {
+
+	}
+
+	/**
+	 * Creates an empty bitboard for the given number of cells.
+	 *
+	 * @param cellCount
+	 * @return
+	 */
+	public static long[] create(int cellCount) {
+
+		return new long[cellCount >> Cell.ROW_SHIFT];
+	}
+
+	public static boolean get(long[] board, int cell) {
+
+		return (board[cell >> Cell.ROW_SHIFT] & (1L << cell)) != 0;
+	}
+
+	public static void set(long[] board, int cell) {
+
+		board[cell >> Cell.ROW_SHIFT] |= 1L << cell;
+	}
+
+	public static void clear(long[] board, int cell) {
+
+		board[cell >> Cell.ROW_SHIFT] &= ~(1L << cell);
+	}
+
+	/**
+	 * Counts the cells that are set in both bitboards.
+	 *
+	 * @param board
+	 * @param mask
+	 * @return
+	 */
+	public static int countAnd(long[] board, long[] mask) {
+
+		int count = 0;
+		for (int i = 0; i < board.length; i++) {
+			count += Long.bitCount(board[i] & mask[i]);
+		}
+		return count;
+	}
+
+	/**
+	 * Checks whether every cell of mask is also set in board.
+	 *
+	 * @param board
+	 * @param mask
+	 * @return
+	 */
+	public static boolean containsAll(long[] board, long[] mask) {
+
+		for (int i = 0; i < board.length; i++) {
+			if ((mask[i] & ~board[i]) != 0) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Adds all cells to 'reachable' that are connected to its cells by steps between neighbouring cells of 'passable'.
+	 * The cells already set need not be passable themselves.
+	 * <p>
+	 * Every row is filled horizontally at once by shifting. The rows are visited from top to bottom, going back up
+	 * whenever a row has grown below cells it can spread to, so a fill takes a few operations per row and turn of the
+	 * reachable area instead of per cell. The first and the last row are left out, since they are padding.
+	 *
+	 * @param reachable
+	 * @param passable
+	 */
+	public static void fill(long[] reachable, long[] passable) {
+
+		int last = reachable.length - 2;
+		for (int row = 1; row <= last; row++) {
+			if (reachable[row] != 0) {
+				reachable[row] = fillRow(reachable[row], passable[row]);
+			}
+		}
+		// All rows above the current one are complete as long as the rows below them do not change
+		int row = 1;
+		while (row <= last) {
+			if (fillFromNeighbours(reachable, passable, row) && row > 1
+					&& (reachable[row] & passable[row - 1] & ~reachable[row - 1]) != 0) {
+				row--;
+			} else {
+				row++;
+			}
+		}
+	}
+
+	/**
+	 * Adds the passable cells below and above reachable cells to the given row and fills it horizontally.
+	 *
+	 * @return True, if the row has changed
+	 */
+	private static boolean fillFromNeighbours(long[] reachable, long[] passable, int row) {
+
+		long seeds = reachable[row] | ((reachable[row - 1] | reachable[row + 1]) & passable[row]);
+		if (seeds == reachable[row]) {
+			return false;
+		}
+		reachable[row] = fillRow(seeds, passable[row]);
+		return true;
+	}
+
+	/**
+	 * Returns the seeds together with all cells of the row connected to them by passable cells (Kogge-Stone fill
+	 * into both directions).
+	 *
+	 * @param seeds
+	 * @param passable
+	 * @return
+	 */
+	private static long fillRow(long seeds, long passable) {
+
+		long up = seeds;
+		long down = seeds;
+		long upPassable = passable;
+		long downPassable = passable;
+		for (int shift = 1; shift < Long.SIZE; shift <<= 1) {
+			up |= upPassable & (up << shift);
+			upPassable &= upPassable << shift;
+			down |= downPassable & (down >>> shift);
+			downPassable &= downPassable >>> shift;
+		}
+		return up | down;
+	}
+
+	/**
+	 * Returns the first set cell with an index greater than or equal to 'from', or -1 if there is none.
+	 * Iterate over all set cells with {@code for (int c = next(b, 0); c >= 0; c = next(b, c + 1))}.
+	 *
+	 * @param board
+	 * @param from
+	 * @return
+	 */
+	public static int next(long[] board, int from) {
+
+		int row = from >> Cell.ROW_SHIFT;
+		if (row >= board.length) {
+			return -1;
+		}
+		long bits = board[row] & (-1L << from);
+		while (bits == 0) {
+			if (++row == board.length) {
+				return -1;
+			}
+			bits = board[row];
+		}
+		return (row << Cell.ROW_SHIFT) | Long.numberOfTrailingZeros(bits);
+	}
+}
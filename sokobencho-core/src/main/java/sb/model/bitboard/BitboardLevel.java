@@ -0,0 +1,1238 @@
+package sb.model.bitboard;
+
+import sb.model.AdvancedTileBoardListener;
+import sb.model.AdvancedTileBoardModel;
+import sb.model.FreezeDetector;
+import sb.model.Level;
+import sb.model.misc.Cell;
+import sb.model.misc.Direction;
+import sb.model.misc.Vector;
+import sb.model.moveable.Box;
+import sb.model.moveable.Event;
+import sb.model.moveable.Moveable;
+import sb.model.moveable.Rock;
+import sb.model.tile.CrackedFloor;
+import sb.model.tile.EmptyPassage;
+import sb.model.tile.Rutting;
+import sb.model.tile.Target;
+import sb.model.tile.Teleporter;
+import sb.model.tile.Tile;
+import sb.model.tile.Wall;
+import sb.model.tile.doormechanism.Button;
+import sb.model.tile.doormechanism.ButtonDoorGroup;
+import sb.model.tile.doormechanism.Door;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A packed alternative to the {@link Level} model. Walls, targets, boxes, rocks, doors, buttons and so on are stored
+ * as bitboards (see {@link Bitboard}) and positions as cell indices (see {@link Cell}), so a move is just a few bit
+ * tests and bit flips and does not allocate anything as long as no listener is registered.
+ * <p>
+ * Level files are read by an internal {@link Level}, whose state is packed into the bitboards after every load.
+ * The game rules are the same as the ones implemented by the tiles of the object model.
+ * <p>
+ * Besides the {@link AdvancedTileBoardModel} interface this model offers cell based access for headless users like
+ * solvers: the dynamic state can be exported to and imported from a long[] and copies share the static structure.
+ */
+public class BitboardLevel implements AdvancedTileBoardModel<Tile, Moveable>, FreezeDetector.Board {
+
+	/**
+	 * Shared instance of the stateless wall tile returned by {@link #getTile(Vector)}
+	 */
+	private static final Tile WALL = new Wall();
+
+	/**
+	 * Shared instance of the stateless passage tile returned by {@link #getTile(Vector)}
+	 */
+	private static final Tile PASSAGE = new EmptyPassage();
+
+	/**
+	 * Bits of the state taken by the player cell
+	 */
+	private static final int PLAYER_BITS = 16;
+
+	/**
+	 * Bits of the state taken by the steadyness of a cracked floor, which is at most 15
+	 */
+	private static final int STEADYNESS_BITS = 4;
+
+	/**
+	 * The object model used to read the level files
+	 */
+	private final Level loader;
+
+	/**
+	 * A list of attached listeners, e.g. views to display the game
+	 */
+	private List<AdvancedTileBoardListener> listeners;
+
+	/**
+	 * Actual width of the level
+	 */
+	private int levelWidth;
+
+	/**
+	 * Actual height of the level
+	 */
+	private int levelHeight;
+
+	/**
+	 * Walls, including the padding around the level
+	 */
+	private long[] walls;
+
+	private long[] targets;
+
+	private long[] doors;
+
+	private long[] buttons;
+
+	private long[] crackedFloors;
+
+	private long[] playerTeleporters;
+
+	private long[] objectTeleporters;
+
+	/**
+	 * Doors whose group needs more pressed buttons than there are boxes and rocks
+	 */
+	private long[] closedDoors;
+
+	/**
+	 * Cells a box or rock can never be moved onto in a direction, indexed by the ordinal of the movement direction.
+	 * These are the walls, the doors that can never open and the ruttings that do not allow this direction.
+	 */
+	private long[][] heavyBlocked;
+
+	/**
+	 * Floor cells from which a box can never reach any target (see {@link Level#isDeadSquare(int)})
+	 */
+	private long[] deadSquares;
+
+	/**
+	 * The push distances of every cell to every target (see {@link Level#getPushDistance(int, int)}), flat and indexed
+	 * by target index times the number of cells plus the cell. Shared by all copies.
+	 */
+	private short[] pushDistances;
+
+	/**
+	 * Number of targets
+	 */
+	private int targetCount;
+
+	/**
+	 * The allowed direction of each rutting, null for cells without a rutting
+	 */
+	private Direction[] ruttings;
+
+	/**
+	 * The cell of the linked teleporter for each teleporter cell
+	 */
+	private int[] teleporterTargets;
+
+	/**
+	 * All cracked floor cells in ascending order
+	 */
+	private int[] crackedCells;
+
+	/**
+	 * All teleporter cells in ascending order
+	 */
+	private int[] teleporterCells;
+
+	/**
+	 * Does the level contain rocks? If not, the state does not store them.
+	 */
+	private boolean hasRocks;
+
+	/**
+	 * Number of words of the state taken by the player cell, the blocked teleporters and the steadyness
+	 */
+	private int headerLength;
+
+	/**
+	 * The teleporter tiles of the loaded level. Their type and pair id never change, so they can be handed to views.
+	 */
+	private Teleporter[] teleporterTiles;
+
+	/**
+	 * The door groups of the loaded level providing the rules of when their doors are open
+	 */
+	private ButtonDoorGroup[] groups;
+
+	/**
+	 * The buttons of each group
+	 */
+	private long[][] groupButtons;
+
+	/**
+	 * The doors of each group
+	 */
+	private long[][] groupDoors;
+
+	/**
+	 * Number of boxes exceeding the number of targets
+	 */
+	private int spareBoxes;
+
+	/**
+	 * Can pushes be undone by pulls (see {@link #isReversible()})?
+	 */
+	private boolean reversible;
+
+	/**
+	 * Detects pushes after which the level cannot be solved anymore
+	 */
+	private FreezeDetector freezeDetector;
+
+	/**
+	 * The cell of the player
+	 */
+	private int player;
+
+	private long[] boxes;
+
+	private long[] rocks;
+
+	private long[] openDoors;
+
+	private long[] blockedTeleporters;
+
+	/**
+	 * The remaining steadyness of each cracked floor
+	 */
+	private byte[] steadyness;
+
+	/**
+	 * Cells the player can step onto and stay on, rebuilt by {@link #computeReachable(long[])}
+	 */
+	private long[] standable;
+
+	/**
+	 * Has the latest move pushed a box into a deadlock?
+	 */
+	private boolean deadlocked;
+
+	/**
+	 * Number of moves of the player since the level was loaded
+	 */
+	private int moves;
+
+	/**
+	 * Number of pushes since the level was loaded
+	 */
+	private int pushes;
+
+	/**
+	 * Cell a moveable was moved from by the latest moveable event
+	 */
+	private int eventOldCell;
+
+	/**
+	 * Cell a moveable was moved to by the latest moveable event
+	 */
+	private int eventNewCell;
+
+	/**
+	 * A message for the player
+	 */
+	private String message;
+
+	/**
+	 * Create a new empty model that reads the levels from the level list just like {@link Level} does.
+	 */
+	public BitboardLevel() {
+
+		this(new Level());
+	}
+
+	/**
+	 * Create a model that reads the levels through the given level. If it has already loaded a level, the current
+	 * state of that level is packed right away.
+	 *
+	 * @param loader
+	 */
+	public BitboardLevel(Level loader) {
+
+		this(loader, true);
+	}
+
+	private BitboardLevel(Level loader, boolean follow) {
+
+		this.loader = loader;
+		listeners = new ArrayList<>();
+		if (follow) {
+			loader.registerListener(new LoaderListener());
+		}
+		if (loader.getCurrentLevelIndex() > 0) {
+			pack();
+			message = loader.getMessage();
+		}
+	}
+
+	/**
+	 * Packs the current state of the given level into a model that does not follow the level afterwards, e.g. to
+	 * search it while the level is played on.
+	 *
+	 * @param loader A level that has already loaded a level
+	 * @return
+	 */
+	public static BitboardLevel snapshot(Level loader) {
+
+		if (loader.getCurrentLevelIndex() == 0) {
+			throw new IllegalStateException("No level has been loaded");
+		}
+		return new BitboardLevel(loader, false);
+	}
+
+	/**
+	 * Create a copy of the current state of the given model. The copy shares the static structure of the level with
+	 * the original but has no listeners and is not updated when the loader loads another level.
+	 *
+	 * @param original
+	 */
+	public BitboardLevel(BitboardLevel original) {
+
+		loader = original.loader;
+		listeners = new ArrayList<>();
+		levelWidth = original.levelWidth;
+		levelHeight = original.levelHeight;
+		walls = original.walls;
+		targets = original.targets;
+		doors = original.doors;
+		buttons = original.buttons;
+		crackedFloors = original.crackedFloors;
+		playerTeleporters = original.playerTeleporters;
+		objectTeleporters = original.objectTeleporters;
+		closedDoors = original.closedDoors;
+		heavyBlocked = original.heavyBlocked;
+		deadSquares = original.deadSquares;
+		pushDistances = original.pushDistances;
+		targetCount = original.targetCount;
+		ruttings = original.ruttings;
+		teleporterTargets = original.teleporterTargets;
+		crackedCells = original.crackedCells;
+		teleporterCells = original.teleporterCells;
+		hasRocks = original.hasRocks;
+		headerLength = original.headerLength;
+		teleporterTiles = original.teleporterTiles;
+		groups = original.groups;
+		groupButtons = original.groupButtons;
+		groupDoors = original.groupDoors;
+		spareBoxes = original.spareBoxes;
+		reversible = original.reversible;
+		freezeDetector = new FreezeDetector(this, getCellCount());
+
+		player = original.player;
+		boxes = original.boxes.clone();
+		rocks = original.rocks.clone();
+		openDoors = original.openDoors.clone();
+		blockedTeleporters = original.blockedTeleporters.clone();
+		steadyness = original.steadyness.clone();
+		standable = Bitboard.create(original.getCellCount());
+		deadlocked = original.deadlocked;
+		moves = original.moves;
+		pushes = original.pushes;
+		message = original.message;
+	}
+
+	/**
+	 * Pack the current state of the loader into the bitboards.
+	 */
+	private void pack() {
+
+		levelWidth = loader.getLevelWidth();
+		levelHeight = loader.getLevelHeight();
+		int cellCount = Cell.count(levelHeight);
+
+		walls = Bitboard.create(cellCount);
+		targets = Bitboard.create(cellCount);
+		doors = Bitboard.create(cellCount);
+		buttons = Bitboard.create(cellCount);
+		crackedFloors = Bitboard.create(cellCount);
+		playerTeleporters = Bitboard.create(cellCount);
+		objectTeleporters = Bitboard.create(cellCount);
+		deadSquares = Bitboard.create(cellCount);
+		boxes = Bitboard.create(cellCount);
+		rocks = Bitboard.create(cellCount);
+		openDoors = Bitboard.create(cellCount);
+		blockedTeleporters = Bitboard.create(cellCount);
+		ruttings = new Direction[cellCount];
+		teleporterTargets = new int[cellCount];
+		teleporterTiles = new Teleporter[cellCount];
+		steadyness = new byte[cellCount];
+		standable = Bitboard.create(cellCount);
+		moves = 0;
+		pushes = 0;
+
+		Map<Tile, Integer> buttonCells = new IdentityHashMap<>();
+		for (int cell = 0; cell < cellCount; cell++) {
+			int x = Cell.x(cell);
+			int y = Cell.y(cell);
+			teleporterTargets[cell] = -1;
+			if (x < 0 || x >= levelWidth || y < 0 || y >= levelHeight) {
+				Bitboard.set(walls, cell);
+				continue;
+			}
+
+			if (loader.isDeadSquare(cell)) {
+				Bitboard.set(deadSquares, cell);
+			}
+			Tile tile = loader.getTile(new Vector(x, y));
+			if (tile instanceof Wall) {
+				Bitboard.set(walls, cell);
+			} else if (tile instanceof Target) {
+				Bitboard.set(targets, cell);
+			} else if (tile instanceof CrackedFloor) {
+				Bitboard.set(crackedFloors, cell);
+				steadyness[cell] = (byte) ((CrackedFloor) tile).getSteadyness();
+			} else if (tile instanceof Rutting) {
+				ruttings[cell] = ((Rutting) tile).getAllowedDirection();
+			} else if (tile instanceof Door) {
+				Bitboard.set(doors, cell);
+				if (((Door) tile).isOpen()) {
+					Bitboard.set(openDoors, cell);
+				}
+			} else if (tile instanceof Button) {
+				Bitboard.set(buttons, cell);
+				buttonCells.put(tile, cell);
+			} else if (tile instanceof Teleporter) {
+				Teleporter teleporter = (Teleporter) tile;
+				teleporterTiles[cell] = teleporter;
+				teleporterTargets[cell] = Cell.of(teleporter.getTarget().getPosition());
+				Bitboard.set(teleporter.getType() == Teleporter.Type.PLAYER ? playerTeleporters : objectTeleporters, cell);
+				if (teleporter.isBlocked()) {
+					Bitboard.set(blockedTeleporters, cell);
+				}
+			}
+		}
+
+		crackedCells = new int[Bitboard.countAnd(crackedFloors, crackedFloors)];
+		for (int i = 0, cell = Bitboard.next(crackedFloors, 0); cell >= 0; cell = Bitboard.next(crackedFloors, cell + 1)) {
+			crackedCells[i++] = cell;
+		}
+		teleporterCells = new int[Bitboard.countAnd(playerTeleporters, playerTeleporters)
+				+ Bitboard.countAnd(objectTeleporters, objectTeleporters)];
+		for (int i = 0, cell = 0; cell < cellCount; cell++) {
+			if (teleporterTargets[cell] >= 0) {
+				teleporterCells[i++] = cell;
+			}
+		}
+
+		for (Moveable moveable : loader.getMoveables()) {
+			Bitboard.set(moveable instanceof Rock ? rocks : boxes, Cell.of(moveable.getPosition()));
+		}
+		hasRocks = Bitboard.countAnd(rocks, rocks) > 0;
+		targetCount = loader.getTargetCount();
+		pushDistances = new short[targetCount * cellCount];
+		for (int target = 0; target < targetCount; target++) {
+			for (int cell = 0; cell < cellCount; cell++) {
+				pushDistances[target * cellCount + cell] = (short) loader.getPushDistance(target, cell);
+			}
+		}
+		int headerBits = PLAYER_BITS + teleporterCells.length + STEADYNESS_BITS * crackedCells.length;
+		headerLength = (headerBits + Long.SIZE - 1) / Long.SIZE;
+		player = Cell.of(loader.getPlayerPos());
+		spareBoxes = Bitboard.countAnd(boxes, boxes) - Bitboard.countAnd(targets, targets);
+		freezeDetector = new FreezeDetector(this, cellCount);
+		deadlocked = false;
+
+		Collection<ButtonDoorGroup> loadedGroups = loader.getDoorManager().getGroups();
+		groups = loadedGroups.toArray(new ButtonDoorGroup[loadedGroups.size()]);
+		groupButtons = new long[groups.length][];
+		groupDoors = new long[groups.length][];
+		for (int i = 0; i < groups.length; i++) {
+			groupButtons[i] = Bitboard.create(cellCount);
+			groupDoors[i] = Bitboard.create(cellCount);
+			for (Button button : groups[i].getButtons()) {
+				Bitboard.set(groupButtons[i], buttonCells.get(button));
+			}
+			for (Door door : groups[i].getDoors()) {
+				Bitboard.set(groupDoors[i], Cell.of(door.getPos()));
+			}
+		}
+
+		closedDoors = Bitboard.create(cellCount);
+		int pushableCount = loader.getMoveables().size();
+		for (int i = 0; i < groups.length; i++) {
+			if (!groups[i].canEverOpen(pushableCount)) {
+				for (int row = 0; row < closedDoors.length; row++) {
+					closedDoors[row] |= groupDoors[i][row];
+				}
+			}
+		}
+
+		// A heavy moveable can enter a rutting only if it is moved away from the allowed direction
+		heavyBlocked = new long[Direction.values().length][];
+		for (Direction movement : Direction.values()) {
+			long[] blocked = walls.clone();
+			for (int row = 0; row < blocked.length; row++) {
+				blocked[row] |= closedDoors[row];
+			}
+			for (int cell = 0; cell < cellCount; cell++) {
+				if (ruttings[cell] != null && !movement.getInverse().equals(ruttings[cell])) {
+					Bitboard.set(blocked, cell);
+				}
+			}
+			heavyBlocked[movement.ordinal()] = blocked;
+		}
+
+		reversible = spareBoxes == 0 && !hasRocks && crackedCells.length == 0 && teleporterCells.length == 0
+				&& Bitboard.countAnd(doors, doors) == 0 && Bitboard.countAnd(buttons, buttons) == 0;
+	}
+
+	@Override public void nextLevel() {
+
+		loader.nextLevel();
+	}
+
+	@Override public void resetLevel() {
+
+		loader.resetLevel();
+	}
+
+	/**
+	 * Move the player one tile into movement direction
+	 *
+	 * @param movement
+	 */
+	@Override public void movePlayer(Direction movement) {
+
+		int offset = movement.getOffset();
+		int oldCell = player;
+		int newCell = oldCell + offset;
+		int pushCell = newCell + offset;
+		deadlocked = false;
+
+		// Is there a pushable at the new position?
+		if (isPushable(newCell) && isPassableForPlayer(newCell)) {
+			if (isPushable(pushCell)) {
+				// Two pushables cannot be pushed
+				broadcastMessageUpdate("I am not strong enough to push more than one!");
+				return;
+			} else if (isPassableForHeavy(pushCell, movement)) {
+
+				// Move the pushable and broadcast movement and tile changes
+				boolean rock = Bitboard.get(rocks, newCell);
+				Bitboard.clear(rock ? rocks : boxes, newCell);
+				leaveWithPushable(newCell, rock);
+				int landingCell = walkByWithPushable(pushCell, rock);
+				Bitboard.clear(boxes, landingCell);
+				Bitboard.clear(rocks, landingCell);
+				Bitboard.set(rock ? rocks : boxes, landingCell);
+				broadcastNewMoveableEvent(newCell, landingCell);
+
+				// Move the player and broadcast movement and tile changes
+				pushes++;
+				movePlayerTo(newCell);
+
+				// Tell the player right away if the box can never be moved onto a target again
+				deadlocked = freezeDetector.isDeadlocked(landingCell, spareBoxes);
+				if (deadlocked) {
+					broadcastMessageUpdate("This level is unsolvable now! Press R to reset.");
+				}
+			} else {
+				broadcastMessageUpdate("Something is blocking the way!");
+				return;
+			}
+		} else if (isPassableForPlayer(newCell)) {
+			movePlayerTo(newCell);
+		} else {
+			broadcastMessageUpdate("I can't walk there!");
+		}
+
+		updateDoors();
+
+		// Level complete? Broadcast it!
+		if (checkTargets()) {
+			broadcastLevelComplete();
+		}
+	}
+
+	/**
+	 * Undoes a push: moves the player one cell into the given direction and drags the box behind it onto the cell the
+	 * player has left. Pushing the box back from the new player cell restores the previous state. Only defined for
+	 * reversible levels (see {@link #isReversible()}). Listeners are not informed, pulls are meant for solvers searching
+	 * backwards from the completed level.
+	 *
+	 * @param movement
+	 * @return True, if a box was pulled
+	 */
+	public boolean pullPlayer(Direction movement) {
+
+		int offset = movement.getOffset();
+		int newCell = player + offset;
+		int boxCell = player - offset;
+		if (!Bitboard.get(boxes, boxCell) || !isWalkable(newCell)
+				|| Bitboard.get(heavyBlocked[movement.getInverse().ordinal()], boxCell)) {
+			return false;
+		}
+		Bitboard.clear(boxes, boxCell);
+		Bitboard.set(boxes, player);
+		player = newCell;
+		moves++;
+		pushes++;
+		deadlocked = false;
+		return true;
+	}
+
+	/**
+	 * Moves all boxes onto the targets, leaving the player where it is. Only defined for reversible levels (see
+	 * {@link #isReversible()}), which are completed by this state and no other. Listeners are not informed.
+	 */
+	public void fillTargets() {
+
+		System.arraycopy(targets, 0, boxes, 0, targets.length);
+		deadlocked = false;
+	}
+
+	/**
+	 * Moves the player from its current cell to a neighbour cell, following player teleporters.
+	 *
+	 * @param newCell
+	 */
+	private void movePlayerTo(int newCell) {
+
+		// Every moveable leaving a teleporter unblocks it
+		moves++;
+		Bitboard.clear(blockedTeleporters, player);
+		player = Bitboard.get(playerTeleporters, newCell) ? teleport(newCell) : newCell;
+
+		broadcastPlayerUpdate();
+		broadcastMessageUpdate("");
+	}
+
+	/**
+	 * A box or rock leaves the given cell.
+	 *
+	 * @param cell
+	 * @param rock
+	 */
+	private void leaveWithPushable(int cell, boolean rock) {
+
+		Bitboard.clear(blockedTeleporters, cell);
+		if (Bitboard.get(buttons, cell) || (!rock && Bitboard.get(targets, cell))) {
+			broadcastTileUpdate(cell);
+		}
+	}
+
+	/**
+	 * A box or rock moves onto the given cell.
+	 *
+	 * @param cell
+	 * @param rock
+	 * @return The cell the pushable ends up on, which differs from the given one if it was teleported.
+	 */
+	private int walkByWithPushable(int cell, boolean rock) {
+
+		if (Bitboard.get(crackedFloors, cell)) {
+			steadyness[cell]--;
+			broadcastTileUpdate(cell);
+		} else if (Bitboard.get(buttons, cell) || (!rock && Bitboard.get(targets, cell))) {
+			broadcastTileUpdate(cell);
+		} else if (Bitboard.get(objectTeleporters, cell)) {
+			return teleport(cell);
+		}
+		return cell;
+	}
+
+	/**
+	 * Teleports a moveable from the given teleporter cell to the linked teleporter if the latter is not blocked.
+	 * Blocks the linked teleporter after a successful teleport.
+	 *
+	 * @param cell
+	 * @return The cell of the moveable after teleporting
+	 */
+	private int teleport(int cell) {
+
+		int target = teleporterTargets[cell];
+		if (Bitboard.get(blockedTeleporters, target)) {
+			return cell;
+		}
+		Bitboard.set(blockedTeleporters, target);
+		return target;
+	}
+
+	/**
+	 * Puts the player onto the given cell as if it had walked there without pushing anything.
+	 * Like walking, this unblocks the teleporter the player is leaving. A player standing on a player teleporter has
+	 * always been teleported there, so that teleporter is blocked.
+	 *
+	 * @param cell
+	 */
+	public void placePlayer(int cell) {
+
+		Bitboard.clear(blockedTeleporters, player);
+		player = cell;
+		if (Bitboard.get(playerTeleporters, cell)) {
+			Bitboard.set(blockedTeleporters, cell);
+		}
+	}
+
+	public int getPlayerCell() {
+
+		return player;
+	}
+
+	@Override public boolean isPushable(int cell) {
+
+		return Bitboard.get(boxes, cell) || Bitboard.get(rocks, cell);
+	}
+
+	@Override public boolean isBox(int cell) {
+
+		return Bitboard.get(boxes, cell);
+	}
+
+	@Override public boolean isTarget(int cell) {
+
+		return Bitboard.get(targets, cell);
+	}
+
+	public boolean isWall(int cell) {
+
+		return Bitboard.get(walls, cell);
+	}
+
+	/**
+	 * Can a box on the given cell never be pushed onto any target?
+	 *
+	 * @param cell
+	 * @return
+	 */
+	@Override public boolean isDeadSquare(int cell) {
+
+		return Bitboard.get(deadSquares, cell);
+	}
+
+	public int getTargetCount() {
+
+		return targetCount;
+	}
+
+	/**
+	 * Returns the minimal number of pushes to move a box from the given cell onto the given target, ignoring all other
+	 * moveables
+	 *
+	 * @param target Index of the target in ascending order of the target cells
+	 * @param cell
+	 * @return The distance, or {@link Level#UNREACHABLE}
+	 */
+	public int getPushDistance(int target, int cell) {
+
+		return pushDistances[(target * walls.length << Cell.ROW_SHIFT) + cell];
+	}
+
+	public boolean isObjectTeleporter(int cell) {
+
+		return Bitboard.get(objectTeleporters, cell);
+	}
+
+	/**
+	 * Returns the cell of the teleporter linked to the given teleporter cell, or -1 if there is no teleporter.
+	 *
+	 * @param cell
+	 * @return
+	 */
+	public int getTeleporterTarget(int cell) {
+
+		return teleporterTargets[cell];
+	}
+
+	/**
+	 * Can a box or rock ever be moved onto the given cell in the given direction, no matter where the other
+	 * moveables are? Doors are assumed to open eventually unless they never can, cracked floors that are broken
+	 * already stay broken.
+	 *
+	 * @param cell
+	 * @param movement
+	 * @return
+	 */
+	@Override public boolean isEverPassableForHeavy(int cell, Direction movement) {
+
+		return !Bitboard.get(heavyBlocked[movement.ordinal()], cell) && (!Bitboard.get(crackedFloors, cell) || steadyness[cell] > 0);
+	}
+
+	@Override public boolean isEverPassableForPlayer(int cell) {
+
+		return !Bitboard.get(walls, cell) && !Bitboard.get(closedDoors, cell);
+	}
+
+	/**
+	 * Can the player walk onto the given cell without pushing anything?
+	 *
+	 * @param cell
+	 * @return
+	 */
+	public boolean isWalkable(int cell) {
+
+		return isPassableForPlayer(cell) && !isPushable(cell);
+	}
+
+	/**
+	 * Computes the cells the player can reach without pushing anything, which are the cells of the region it is in
+	 * and, through player teleporters, the regions linked to it. The regions are filled a row at a time (see
+	 * {@link Bitboard#fill(long[], long[])}).
+	 *
+	 * @param reachable Receives the reachable cells
+	 * @return The top-left reachable cell, which stands for the whole region when the player is normalized
+	 */
+	public int computeReachable(long[] reachable) {
+
+		for (int row = 0; row < standable.length; row++) {
+			long closedDoors = doors[row] & ~openDoors[row];
+			standable[row] = ~(walls[row] | closedDoors | boxes[row] | rocks[row] | playerTeleporters[row]);
+		}
+		Arrays.fill(reachable, 0);
+		Bitboard.set(reachable, player);
+		Bitboard.fill(reachable, standable);
+
+		// Walking onto a player teleporter leads to the linked one, from where the fill goes on
+		boolean teleported = true;
+		while (teleported) {
+			teleported = false;
+			for (int cell = Bitboard.next(playerTeleporters, 0); cell >= 0; cell = Bitboard.next(playerTeleporters, cell + 1)) {
+				int target = teleporterTargets[cell];
+				if (!Bitboard.get(reachable, target) && isWalkable(cell) && hasReachableNeighbour(reachable, cell)) {
+					Bitboard.set(reachable, target);
+					teleported = true;
+				}
+			}
+			if (teleported) {
+				Bitboard.fill(reachable, standable);
+			}
+		}
+		return Bitboard.next(reachable, 0);
+	}
+
+	private static boolean hasReachableNeighbour(long[] reachable, int cell) {
+
+		return Bitboard.get(reachable, cell - Cell.ROW_LENGTH) || Bitboard.get(reachable, cell + Cell.ROW_LENGTH)
+				|| Bitboard.get(reachable, cell - 1) || Bitboard.get(reachable, cell + 1);
+	}
+
+	/**
+	 * Returns the cell the player ends up on when walking onto the given cell, which is the linked teleporter for
+	 * player teleporters. Player teleporters can only be blocked by the player itself, which unblocks them when
+	 * walking away, so the player is always teleported.
+	 *
+	 * @param cell
+	 * @return
+	 */
+	public int getArrivalCell(int cell) {
+
+		return Bitboard.get(playerTeleporters, cell) ? teleporterTargets[cell] : cell;
+	}
+
+	/**
+	 * Are all targets filled with boxes?
+	 *
+	 * @return
+	 */
+	public boolean isCompleted() {
+
+		return checkTargets();
+	}
+
+	/**
+	 * Can every push on this level be undone by a pull (see {@link #pullPlayer(Direction)})? This is the case if the
+	 * level has no special tiles except for ruttings, no rocks and exactly as many boxes as targets.
+	 *
+	 * @return
+	 */
+	public boolean isReversible() {
+
+		return reversible;
+	}
+
+	/**
+	 * Has the latest move pushed a box onto a dead square or into a freeze deadlock, so the level cannot be solved
+	 * anymore?
+	 *
+	 * @return
+	 */
+	public boolean isDeadlocked() {
+
+		return deadlocked;
+	}
+
+	public int getMoveCount() {
+
+		return moves;
+	}
+
+	public int getPushCount() {
+
+		return pushes;
+	}
+
+	/**
+	 * Returns the number of cells of the level including padding, i.e. the upper bound of all cell indices.
+	 *
+	 * @return
+	 */
+	public int getCellCount() {
+
+		return walls.length << Cell.ROW_SHIFT;
+	}
+
+	/**
+	 * Returns the length of the array needed by {@link #exportState(long[])}.
+	 *
+	 * @return
+	 */
+	public int getStateLength() {
+
+		return headerLength + (hasRocks ? 2 : 1) * levelHeight;
+	}
+
+	/**
+	 * Writes the dynamic state of the level into the given array. The state starts with a header of packed bits: the
+	 * player cell, one bit per teleporter telling whether it is blocked and the steadyness of all cracked floors. The
+	 * header is followed by the rows of boxes and, if the level contains rocks at all, the rows of rocks. Only the
+	 * rows inside the level are stored, since the border rows are always empty. Open doors are not stored, they
+	 * follow from the pressed buttons.
+	 * Equal states result in equal arrays.
+	 *
+	 * @param state An array of length {@link #getStateLength()}
+	 */
+	public void exportState(long[] state) {
+
+		Arrays.fill(state, 0, headerLength, 0);
+		writeBits(state, 0, PLAYER_BITS, player);
+		int position = PLAYER_BITS;
+		for (int cell : teleporterCells) {
+			writeBits(state, position++, 1, Bitboard.get(blockedTeleporters, cell) ? 1 : 0);
+		}
+		for (int cell : crackedCells) {
+			writeBits(state, position, STEADYNESS_BITS, steadyness[cell]);
+			position += STEADYNESS_BITS;
+		}
+		System.arraycopy(boxes, 1, state, headerLength, levelHeight);
+		if (hasRocks) {
+			System.arraycopy(rocks, 1, state, headerLength + levelHeight, levelHeight);
+		}
+	}
+
+	/**
+	 * Counts the targets without a box in a state written by {@link #exportState(long[])}, without importing it.
+	 *
+	 * @param state
+	 * @return
+	 */
+	public int countEmptyTargets(long[] state) {
+
+		int filled = 0;
+		for (int row = 0; row < levelHeight; row++) {
+			filled += Long.bitCount(state[headerLength + row] & targets[row + 1]);
+		}
+		return targetCount - filled;
+	}
+
+	/**
+	 * Replaces the dynamic state of the level by a state written by {@link #exportState(long[])} of this model or
+	 * one of its copies. Registered listeners are told to repaint the level.
+	 *
+	 * @param state
+	 */
+	public void importState(long[] state) {
+
+		player = (int) readBits(state, 0, PLAYER_BITS);
+		int position = PLAYER_BITS;
+		for (int cell : teleporterCells) {
+			if (readBits(state, position++, 1) != 0) {
+				Bitboard.set(blockedTeleporters, cell);
+			} else {
+				Bitboard.clear(blockedTeleporters, cell);
+			}
+		}
+		for (int cell : crackedCells) {
+			steadyness[cell] = (byte) readBits(state, position, STEADYNESS_BITS);
+			position += STEADYNESS_BITS;
+		}
+		System.arraycopy(state, headerLength, boxes, 1, levelHeight);
+		if (hasRocks) {
+			System.arraycopy(state, headerLength + levelHeight, rocks, 1, levelHeight);
+		}
+		deadlocked = false;
+		updateDoors();
+		listeners.forEach(listener -> listener.repaintLevel());
+	}
+
+	/**
+	 * Writes the lowest bits of the given value at the given bit position, which may span two words. The bits must
+	 * have been cleared before.
+	 *
+	 * @param words
+	 * @param position
+	 * @param count    Number of bits, at most 64
+	 * @param value
+	 */
+	private static void writeBits(long[] words, int position, int count, long value) {
+
+		int word = position >>> 6;
+		int shift = position & 63;
+		value &= -1L >>> (Long.SIZE - count);
+		words[word] |= value << shift;
+		if (shift + count > Long.SIZE) {
+			words[word + 1] |= value >>> (Long.SIZE - shift);
+		}
+	}
+
+	private static long readBits(long[] words, int position, int count) {
+
+		int word = position >>> 6;
+		int shift = position & 63;
+		long value = words[word] >>> shift;
+		if (shift + count > Long.SIZE) {
+			value |= words[word + 1] << (Long.SIZE - shift);
+		}
+		return value & (-1L >>> (Long.SIZE - count));
+	}
+
+	/**
+	 * The player can walk everywhere except for walls and closed doors.
+	 *
+	 * @param cell
+	 * @return
+	 */
+	private boolean isPassableForPlayer(int cell) {
+
+		return !Bitboard.get(walls, cell) && (!Bitboard.get(doors, cell) || Bitboard.get(openDoors, cell));
+	}
+
+	/**
+	 * Checks if a box or rock can be moved onto the given cell in the given direction.
+	 *
+	 * @param cell
+	 * @param movement
+	 * @return
+	 */
+	private boolean isPassableForHeavy(int cell, Direction movement) {
+
+		if (Bitboard.get(heavyBlocked[movement.ordinal()], cell)) {
+			return false;
+		} else if (Bitboard.get(crackedFloors, cell)) {
+			return steadyness[cell] > 0;
+		}
+		return !Bitboard.get(doors, cell) || Bitboard.get(openDoors, cell);
+	}
+
+	/**
+	 * Open or close the doors of every group according to the number of its pressed buttons and broadcast changes.
+	 * A button is pressed if there is a box or rock on it.
+	 */
+	private void updateDoors() {
+
+		for (int g = 0; g < groups.length; g++) {
+			long[] groupButtonCells = groupButtons[g];
+			long[] groupDoorCells = groupDoors[g];
+			int pressed = 0;
+			for (int i = 0; i < groupButtonCells.length; i++) {
+				pressed += Long.bitCount(groupButtonCells[i] & (boxes[i] | rocks[i]));
+			}
+			boolean open = groups[g].isOpen(pressed);
+			for (int i = 0; i < groupDoorCells.length; i++) {
+				long updated = open ? openDoors[i] | groupDoorCells[i] : openDoors[i] & ~groupDoorCells[i];
+				long changed = updated ^ openDoors[i];
+				openDoors[i] = updated;
+				while (changed != 0) {
+					broadcastTileUpdate((i << Cell.ROW_SHIFT) | Long.numberOfTrailingZeros(changed));
+					changed &= changed - 1;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Are all targets filled with boxes?
+	 *
+	 * @return
+	 */
+	private boolean checkTargets() {
+
+		return Bitboard.containsAll(boxes, targets);
+	}
+
+	/**
+	 * Informs all registered listeners about a tile update.
+	 *
+	 * @param cell Cell of the updated tile
+	 */
+	private void broadcastTileUpdate(int cell) {
+
+		if (!listeners.isEmpty()) {
+			Vector pos = Cell.toVector(cell);
+			listeners.forEach(listener -> listener.updateTile(pos));
+		}
+	}
+
+	/**
+	 * Registers a new moveable event and informs all registered listeners about it
+	 */
+	private void broadcastNewMoveableEvent(int oldCell, int newCell) {
+
+		eventOldCell = oldCell;
+		eventNewCell = newCell;
+		listeners.forEach(listener -> listener.updateMoveable());
+	}
+
+	/**
+	 * Informs all registered listeners about a player movement.
+	 */
+	private void broadcastPlayerUpdate() {
+
+		listeners.forEach(listener -> listener.updatePlayer());
+	}
+
+	/**
+	 * Changes the current message and informs all registered listeners about it.
+	 */
+	private void broadcastMessageUpdate(String newMessage) {
+
+		message = newMessage;
+		listeners.forEach(listener -> listener.updateMessage());
+	}
+
+	/**
+	 * Informs all registered listeners that the level is finished.
+	 */
+	private void broadcastLevelComplete() {
+
+		listeners.forEach(listener -> listener.levelCompleted());
+	}
+
+	@Override public void registerListener(AdvancedTileBoardListener listener) {
+
+		listeners.add(listener);
+	}
+
+	@Override public void unregisterListener(AdvancedTileBoardListener listener) {
+
+		listeners.remove(listener);
+	}
+
+	@Override public int getLevelWidth() {
+
+		return levelWidth;
+	}
+
+	@Override public int getLevelHeight() {
+
+		return levelHeight;
+	}
+
+	/**
+	 * Returns the tile at the given position. Tiles with a state that can change during the game are created from
+	 * the bitboards on every call, all other tiles are shared.
+	 *
+	 * @param pos
+	 * @return
+	 */
+	@Override public Tile getTile(Vector pos) {
+
+		int cell = Cell.of(pos);
+		if (Bitboard.get(walls, cell)) {
+			return WALL;
+		} else if (Bitboard.get(targets, cell)) {
+			return new Target(Bitboard.get(boxes, cell));
+		} else if (Bitboard.get(crackedFloors, cell)) {
+			return new CrackedFloor(steadyness[cell]);
+		} else if (ruttings[cell] != null) {
+			return new Rutting(ruttings[cell]);
+		} else if (Bitboard.get(doors, cell)) {
+			Door door = new Door(pos);
+			door.setOpen(Bitboard.get(openDoors, cell));
+			return door;
+		} else if (Bitboard.get(buttons, cell)) {
+			return new Button();
+		} else if (teleporterTiles[cell] != null) {
+			return teleporterTiles[cell];
+		}
+		return PASSAGE;
+	}
+
+	@Override public Vector getPlayerPos() {
+
+		return Cell.toVector(player);
+	}
+
+	@Override public List<Moveable> getMoveables() {
+
+		List<Moveable> moveables = new ArrayList<>();
+		for (int cell = Bitboard.next(boxes, 0); cell >= 0; cell = Bitboard.next(boxes, cell + 1)) {
+			moveables.add(new Box(Cell.toVector(cell)));
+		}
+		for (int cell = Bitboard.next(rocks, 0); cell >= 0; cell = Bitboard.next(rocks, cell + 1)) {
+			moveables.add(new Rock(Cell.toVector(cell)));
+		}
+		return moveables;
+	}
+
+	@Override public Event<Moveable> getLatestMoveableEvent() {
+
+		Vector newPos = Cell.toVector(eventNewCell);
+		Moveable moveable = Bitboard.get(rocks, eventNewCell) ? new Rock(newPos) : new Box(newPos);
+		return new Event<>(Cell.toVector(eventOldCell), newPos, moveable);
+	}
+
+	@Override public String getMessage() {
+
+		return message;
+	}
+
+	@Override public int getCurrentLevelIndex() {
+
+		return loader.getCurrentLevelIndex();
+	}
+
+	/**
+	 * Listens to the loader to pack every newly loaded level and to forward its broadcasts.
+	 * The loader itself is never moved, so it does not send any other updates.
+	 */
+	private class LoaderListener implements AdvancedTileBoardListener {
+
+		@Override public void repaintLevel() {
+
+			pack();
+			message = loader.getMessage();
+			listeners.forEach(listener -> listener.repaintLevel());
+		}
+
+		@Override public void gameFinished() {
+
+			listeners.forEach(listener -> listener.gameFinished());
+		}
+
+		@Override public void quit() {
+
+			listeners.forEach(listener -> listener.quit());
+		}
+
+		@Override public void updateTile(Vector pos) {
+
+		}
+
+		@Override public void updatePlayer() {
+
+		}
+
+		@Override public void updateMoveable() {
+
+		}
+
+		@Override public void levelCompleted() {
+
+		}
+
+		@Override public void updateMessage() {
+
+		}
+	}
+}
@@ -0,0 +1,79 @@
+package sb.model.misc;
+
+/**
+ * Packs a position into a single int cell index.
+ * Every row of a level occupies {@link #ROW_LENGTH} cells, so one row of a bitboard fits into exactly one long.
+ * The level is framed by one row and one column of padding cells, so the neighbours of border tiles are always
+ * valid cell indices.
+ */
+public final class Cell {
+
+	/**
+	 * Number of bits to shift a row index by to get the index of the first cell of that row
+	 */
+	public static final int ROW_SHIFT = 6;
+
+	/**
+	 * Number of cells per row, including padding
+	 */
+	public static final int ROW_LENGTH = 1 << ROW_SHIFT;
+
+	private Cell() {
+
+	}
+
+	/**
+	 * Returns the cell index of the tile at the given position.
+	 *
+	 * @param x
+	 * @param y
+	 * @return
+	 */
+	public static int of(int x, int y) {
+
+		return ((y + 1) << ROW_SHIFT) | (x + 1);
+	}
+
+	/**
+	 * See {@link #of(int, int)}.
+	 *
+	 * @param pos
+	 * @return
+	 */
+	public static int of(Vector pos) {
+
+		return of(pos.getX(), pos.getY());
+	}
+
+	public static int x(int cell) {
+
+		return (cell & (ROW_LENGTH - 1)) - 1;
+	}
+
+	public static int y(int cell) {
+
+		return (cell >> ROW_SHIFT) - 1;
+	}
+
+	/**
+	 * Converts the cell index back to a position
+	 *
+	 * @param cell
+	 * @return
+	 */
+	public static Vector toVector(int cell) {
+
+		return new Vector(x(cell), y(cell));
+	}
+
+	/**
+	 * Returns the number of cells needed to store a level of the given height, including padding.
+	 *
+	 * @param levelHeight
+	 * @return
+	 */
+	public static int count(int levelHeight) {
+
+		return (levelHeight + 2) << ROW_SHIFT;
+	}
+}
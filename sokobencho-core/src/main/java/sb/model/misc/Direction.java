@@ -0,0 +1,163 @@
+package sb.model.misc;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Holds the four cardinal directions
+ */
+public enum Direction {
+	N(new Vector(0, -1), 'u'),
+	O(new Vector(1, 0), 'r'),
+	S(new Vector(0, 1), 'd'),
+	W(new Vector(-1, 0), 'l'),
+	NONE(new Vector(0, 0), '-');
+
+	/**
+	 * Cached result of {@link #values()}, which creates a new array on every call
+	 */
+	private static final Direction[] VALUES = values();
+
+	static {
+		N.inverse = S;
+		O.inverse = W;
+		S.inverse = N;
+		W.inverse = O;
+		NONE.inverse = NONE;
+	}
+
+	private final Vector coords;
+
+	/**
+	 * The difference of cell indices (see {@link Cell}) between a tile and its neighbour in this direction
+	 */
+	private final int offset;
+
+	/**
+	 * The letter of a move into this direction in the usual Sokoban LURD notation.
+	 * Pushes are written as upper case letters.
+	 */
+	private final char lurd;
+
+	/**
+	 * The opposite direction
+	 */
+	private Direction inverse;
+
+	Direction(Vector coords, char lurd) {
+
+		this.coords = coords;
+		this.offset = coords.getY() * Cell.ROW_LENGTH + coords.getX();
+		this.lurd = lurd;
+	}
+
+	public Vector getCoords() {
+
+		return coords;
+	}
+
+	public int getOffset() {
+
+		return offset;
+	}
+
+	/**
+	 * Returns the LURD letter of a move into this direction
+	 *
+	 * @param push Return the upper case letter of a push?
+	 * @return
+	 */
+	public char getLurd(boolean push) {
+
+		return push ? Character.toUpperCase(lurd) : lurd;
+	}
+
+	/**
+	 * Returns the opposite direction
+	 *
+	 * @return
+	 */
+	public Direction getInverse() {
+
+		return inverse;
+	}
+
+	/**
+	 * Returns the direction a movable had to move into when moving from position "from" to position "to".
+	 * Only N, O, S, W are allowed, otherwise NONE is returned.
+	 *
+	 * @param from
+	 * @param to
+	 * @return
+	 */
+	public static Direction getDirection(Vector from, Vector to) {
+
+		Vector dir = to.sub(from).normalize();
+		return getDirection(dir);
+	}
+
+	/**
+	 * Checks whether the given vector is north, south, east or west oriented and return the corresponding enum entry.
+	 * If it is none of the above, return "NONE".
+	 *
+	 * @param dir
+	 * @return
+	 */
+	public static Direction getDirection(Vector dir) {
+
+		Vector dirNorm = dir.normalize();
+		for (Direction d : VALUES) {
+			if (d.getCoords().equals(dirNorm)) {
+				return d;
+			}
+		}
+		return NONE;
+	}
+
+	/**
+	 * Returns the direction of a move in LURD notation, ignoring whether it is a push or not.
+	 * If c is not a LURD letter, return "NONE".
+	 *
+	 * @param c
+	 * @return
+	 */
+	public static Direction getDirection(char c) {
+
+		char move = Character.toLowerCase(c);
+		for (Direction d : VALUES) {
+			if (d.lurd == move && d != NONE) {
+				return d;
+			}
+		}
+		return NONE;
+	}
+
+	/**
+	 * Returns the direction with the given ordinal, e.g. of a move stored in a byte.
+	 * If it is not the ordinal of N, O, S or W, return "NONE".
+	 *
+	 * @param ordinal
+	 * @return
+	 */
+	public static Direction fromOrdinal(int ordinal) {
+
+		return ordinal >= 0 && ordinal < NONE.ordinal() ? VALUES[ordinal] : NONE;
+	}
+
+	/**
+	 * Returns the Direction with name equal to c.
+	 *
+	 * @param c
+	 * @return
+	 */
+	public static Direction getDirection(String c) {
+
+		List<Direction> result = Arrays.stream(Direction.values()).filter(d -> d.name().equals(c)).collect(Collectors.toList());
+		if (result != null && !result.isEmpty()) {
+			return result.get(0);
+		} else {
+			return NONE;
+		}
+	}
+}
@@ -0,0 +1,81 @@
+package sb.model.misc;
+
+/**
+ * A 64-bit Zobrist hash of a level state. Every feature of the state (e.g. "box on cell 70") has a pseudo-random key
+ * and the hash is the XOR of the keys of all present features, so it can be updated in O(1) by toggling the keys of
+ * the features that changed. Equal states always have equal hashes, no matter how they were reached.
+ * <p>
+ * The keys are derived from the feature, the cell and the state value by the SplitMix64 finalizer, so no key tables
+ * need to be stored and the keys are the same in every level and every run.
+ */
+public class ZobristHash {
+
+	/**
+	 * All kinds of features that contribute to the hash
+	 */
+	public enum Feature {
+		PLAYER, BOX, ROCK, STEADYNESS, OPEN_DOOR, BLOCKED_TELEPORTER
+	}
+
+	private static final long SEED = 0x5ec0bec0L;
+
+	private static final long GOLDEN_GAMMA = 0x9e3779b97f4a7c15L;
+
+	/**
+	 * The current hash value
+	 */
+	private long value;
+
+	public long getValue() {
+
+		return value;
+	}
+
+	/**
+	 * Resets the hash to the value of a state without any features
+	 */
+	public void clear() {
+
+		value = 0;
+	}
+
+	/**
+	 * Adds the feature at the given cell to the hash if it is absent or removes it if it is present.
+	 *
+	 * @param feature
+	 * @param cell
+	 */
+	public void toggle(Feature feature, int cell) {
+
+		value ^= key(feature, cell, 0);
+	}
+
+	/**
+	 * Adds the feature at the given cell with the given state value to the hash if it is absent or removes it if
+	 * it is present.
+	 *
+	 * @param feature
+	 * @param cell
+	 * @param state   A small non-negative value, e.g. the steadyness of a cracked floor
+	 */
+	public void toggle(Feature feature, int cell, int state) {
+
+		value ^= key(feature, cell, state);
+	}
+
+	/**
+	 * Returns the key of a feature
+	 *
+	 * @param feature
+	 * @param cell
+	 * @param state
+	 * @return
+	 */
+	public static long key(Feature feature, int cell, int state) {
+
+		long z = SEED + (((long) ((feature.ordinal() << 8) | (state & 0xff)) << 32) | cell) * GOLDEN_GAMMA;
+		z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+		z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+		return z ^ (z >>> 31);
+	}
+}
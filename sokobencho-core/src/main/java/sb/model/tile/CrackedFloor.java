@@ -1,6 +1,7 @@
 package sb.model.tile;
 
 import sb.model.misc.Direction;
+import sb.model.misc.ZobristHash;
 import sb.model.moveable.Box;
 import sb.model.moveable.Moveable;
 import sb.model.moveable.Rock;
@@ -51,7 +52,9 @@ public class CrackedFloor extends Tile {
 	@Override public boolean walkBy(Moveable moveable) {
 
 		if (moveable.getClass() == Box.class || moveable.getClass() == Rock.class) {
+			hashState();
 			steadyness--;
+			hashState();
 			return true;
 		} else {
 			return false;
@@ -62,4 +65,9 @@ public class CrackedFloor extends Tile {
 
 		return false;
 	}
+
+	@Override protected void hashState() {
+
+		toggleHash(ZobristHash.Feature.STEADYNESS, steadyness);
+	}
 }
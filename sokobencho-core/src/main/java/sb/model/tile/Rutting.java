@@ -36,7 +36,7 @@ public class Rutting extends Tile {
 	@Override public boolean isPassable(Moveable moveable, Direction movement) {
 
 		if ((moveable.getClass() == Box.class || moveable.getClass() == Rock.class)) {
-			return movement.getInverse().equals(allowedDirection);
+			return movement.getInverse() == allowedDirection;
 		} else {
 			return true;
 		}
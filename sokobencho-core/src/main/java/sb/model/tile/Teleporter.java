@@ -2,12 +2,12 @@ package sb.model.tile;
 
 import sb.model.misc.Pair;
 import sb.model.misc.Vector;
+import sb.model.misc.ZobristHash;
 import sb.model.moveable.Box;
 import sb.model.moveable.Moveable;
 import sb.model.moveable.Player;
 import sb.model.moveable.Rock;
 
-import java.util.HashMap;
 import java.util.Map;
 
 /**
@@ -20,9 +20,9 @@ import java.util.Map;
 public class Teleporter extends Passage {
 
 	/**
-	 * Association between the identifying char and the two linked teleporters.
+	 * This teleporter and its counterpart
 	 */
-	private static Map<Character, Pair<Teleporter>> connections = new HashMap<>();
+	private final Pair<Teleporter> pair;
 
 	/**
 	 * The position of this teleporter
@@ -57,19 +57,21 @@ public class Teleporter extends Passage {
 	 * @param pairId
 	 * @param type
 	 * @param position
+	 * @param connections Association between the identifying char and the two linked teleporters of one level
 	 */
-	public Teleporter(char pairId, Type type, Vector position) {
+	public Teleporter(char pairId, Type type, Vector position, Map<Character, Pair<Teleporter>> connections) {
 
 		this.type = type;
 		this.position = position;
 		this.pairId = pairId;
 		Pair<Teleporter> pair = connections.get(pairId);
 		if (pair == null) {
-			pair = new Pair(this);
+			pair = new Pair<>(this);
 			connections.put(pairId, pair);
 		} else {
 			pair.setOther(this);
 		}
+		this.pair = pair;
 	}
 
 	public boolean isBlocked() {
@@ -79,7 +81,9 @@ public class Teleporter extends Passage {
 
 	public void setBlocked(boolean blocked) {
 
+		hashState();
 		this.blocked = blocked;
+		hashState();
 	}
 
 	public Vector getPosition() {
@@ -100,9 +104,10 @@ public class Teleporter extends Passage {
 	/**
 	 * Checks if there are exactly two teleporters for each pairId.
 	 *
+	 * @param connections The teleporters of a level as passed to their constructors
 	 * @return True, if there are exactly two teleporters for each pairId, false, if not.
 	 */
-	public static boolean checkPairs() {
+	public static boolean checkPairs(Map<Character, Pair<Teleporter>> connections) {
 
 		return connections.entrySet().stream().map(e -> e.getValue().isPaired()).reduce(true, Boolean::logicalAnd);
 	}
@@ -114,7 +119,7 @@ public class Teleporter extends Passage {
 	 */
 	public Teleporter getTarget() {
 
-		return connections.get(pairId).getOther(this).get();
+		return pair.getOther(this).get();
 	}
 
 	/**
@@ -145,16 +150,15 @@ public class Teleporter extends Passage {
 	 */
 	@Override public boolean leave(Moveable moveable) {
 
-		blocked = false;
+		setBlocked(false);
 		return false;
 	}
 
-	/**
-	 * Delete all registered teleporter associations
-	 */
-	public static void clear() {
+	@Override protected void hashState() {
 
-		connections.clear();
+		if (blocked) {
+			toggleHash(ZobristHash.Feature.BLOCKED_TELEPORTER, 0);
+		}
 	}
 
 }
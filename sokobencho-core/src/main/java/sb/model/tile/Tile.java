@@ -0,0 +1,80 @@
+package sb.model.tile;
+
+import sb.model.misc.Direction;
+import sb.model.misc.ZobristHash;
+import sb.model.moveable.Moveable;
+
+/**
+ * Superclass of the essential building blocks of a sokobencho level.
+ */
+public abstract class Tile {
+
+	/**
+	 * The hash of the level state this tile belongs to, if any
+	 */
+	private ZobristHash hash;
+
+	/**
+	 * The cell this tile is placed on (see {@link sb.model.misc.Cell})
+	 */
+	private int cell;
+
+	/**
+	 * Is this tile passable by the given moveable?
+	 *
+	 * @param moveable
+	 * @return
+	 */
+	public abstract boolean isPassable(Moveable moveable, Direction movement);
+
+	/**
+	 * The given moveable moves onto this tile.
+	 *
+	 * @param moveable
+	 * @return True, if this tile changed, false, if not.
+	 */
+	public abstract boolean walkBy(Moveable moveable);
+
+	/**
+	 * The given moveable leaves this tile.
+	 *
+	 * @param moveable
+	 * @return True, if this tile changed, false, if not.
+	 */
+	public abstract boolean leave(Moveable moveable);
+
+	/**
+	 * Binds this tile to the hash of the level state, so the tile keeps the hash up to date whenever its state
+	 * changes. The current state of this tile is added to the hash right away.
+	 *
+	 * @param hash
+	 * @param cell The cell this tile is placed on
+	 */
+	public void bind(ZobristHash hash, int cell) {
+
+		this.hash = hash;
+		this.cell = cell;
+		hashState();
+	}
+
+	/**
+	 * Toggles the current state of this tile in the bound hash. Call it once before and once after a state change
+	 * to replace the old state by the new one. Tiles without a state do not contribute to the hash.
+	 */
+	protected void hashState() {
+
+	}
+
+	/**
+	 * Toggles a feature of this tile in the bound hash, if there is one.
+	 *
+	 * @param feature
+	 * @param state
+	 */
+	protected void toggleHash(ZobristHash.Feature feature, int state) {
+
+		if (hash != null) {
+			hash.toggle(feature, cell, state);
+		}
+	}
+}
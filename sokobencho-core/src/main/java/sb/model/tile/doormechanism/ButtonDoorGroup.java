@@ -2,7 +2,6 @@ package sb.model.tile.doormechanism;
 
 import java.util.ArrayList;
 import java.util.List;
-import java.util.stream.Collectors;
 
 /**
  * Represents a group of doors and  the buttons that can open these
@@ -28,6 +27,14 @@ public abstract class ButtonDoorGroup {
 	 */
 	protected abstract boolean isDoorOpenInternal(Door door);
 
+	/**
+	 * The group-type-specific rule of when the doors of this group are open, given the number of pressed buttons.
+	 *
+	 * @param buttonsPressed
+	 * @return
+	 */
+	public abstract boolean isOpen(long buttonsPressed);
+
 	/**
 	 * Checks if the door is open according to the internal ButtonDoorGroup rule.
 	 * Throws an {@link IllegalArgumentException} if the door does not belong to this group.
@@ -44,6 +51,22 @@ public abstract class ButtonDoorGroup {
 		}
 	}
 
+	/**
+	 * Can the doors of this group ever be open if at most the given number of buttons can be pressed at once?
+	 *
+	 * @param maxPressed
+	 * @return
+	 */
+	public boolean canEverOpen(long maxPressed) {
+
+		for (long pressed = 0; pressed <= Math.min(maxPressed, buttons.size()); pressed++) {
+			if (isOpen(pressed)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
 	public void addDoor(Door door) {
 
 		doors.add(door);
@@ -54,6 +77,16 @@ public abstract class ButtonDoorGroup {
 		buttons.add(button);
 	}
 
+	public List<Door> getDoors() {
+
+		return doors;
+	}
+
+	public List<Button> getButtons() {
+
+		return buttons;
+	}
+
 	public boolean containsDoor(Door door) {
 
 		return doors.contains(door);
@@ -66,7 +99,13 @@ public abstract class ButtonDoorGroup {
 	 */
 	protected long getPressedButtonsCount() {
 
-		return buttons.stream().filter(b -> b.isPressed()).collect(Collectors.counting());
+		long pressed = 0;
+		for (int i = 0; i < buttons.size(); i++) {
+			if (buttons.get(i).isPressed()) {
+				pressed++;
+			}
+		}
+		return pressed;
 	}
 
 	/**
@@ -2,42 +2,36 @@ package sb.model.tile.doormechanism;
 
 import sb.model.misc.Vector;
 
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.stream.Collectors;
 
 /**
- * A singleton managing the {@link ButtonDoorGroup}s
+ * Manages the {@link ButtonDoorGroup}s of one level
  */
 public class ButtonDoorGroupManager {
 
-	/**
-	 * The one and only instance
-	 */
-	private static ButtonDoorGroupManager instance;
-
 	/**
 	 * All groups mapped onto their identifying char
 	 */
 	private Map<Character, ButtonDoorGroup> groups;
 
-	private ButtonDoorGroupManager() {
-
-		this.groups = new HashMap<>();
-	}
+	/**
+	 * All groups in creation order, for iterating without allocating
+	 */
+	private List<ButtonDoorGroup> groupList;
 
 	/**
-	 * Get the one and only instance of this class
-	 *
-	 * @return
+	 * Positions of the doors changed by the latest call of {@link #updateDoors()}
 	 */
-	public static ButtonDoorGroupManager getInstance() {
+	private List<Vector> updatedDoorsPos;
 
-		if (instance == null) {
-			instance = new ButtonDoorGroupManager();
-		}
-		return instance;
+	public ButtonDoorGroupManager() {
+
+		this.groups = new HashMap<>();
+		this.groupList = new ArrayList<>();
+		this.updatedDoorsPos = new ArrayList<>();
 	}
 
 	/**
@@ -79,11 +73,26 @@ public class ButtonDoorGroupManager {
 	/**
 	 * Check all door mechanisms to open and close doors..
 	 *
-	 * @return A list of positions of the doors that were opened or closed
+	 * @return A list of positions of the doors that were opened or closed. The list is reused by the next call.
 	 */
 	public List<Vector> updateDoors() {
 
-		return groups.values().stream().flatMap(group -> group.doors.stream()).filter(door -> door.setOpen(isDoorOpen(door))).map(door -> door.getPos()).collect(Collectors.toList());
+		updatedDoorsPos.clear();
+		for (int g = 0; g < groupList.size(); g++) {
+			List<Door> doors = groupList.get(g).doors;
+			for (int d = 0; d < doors.size(); d++) {
+				Door door = doors.get(d);
+				if (door.setOpen(isDoorOpen(door))) {
+					updatedDoorsPos.add(door.getPos());
+				}
+			}
+		}
+		return updatedDoorsPos;
+	}
+
+	public List<ButtonDoorGroup> getGroups() {
+
+		return groupList;
 	}
 
 	/**
@@ -100,6 +109,7 @@ public class ButtonDoorGroupManager {
 		if (group == null) {
 			group = type.createGroup();
 			groups.put(Character.toLowerCase(c), group);
+			groupList.add(group);
 		}
 
 		return group;
@@ -115,7 +125,13 @@ public class ButtonDoorGroupManager {
 	 */
 	private boolean isDoorOpen(Door door) {
 
-		return groups.values().stream().anyMatch(group -> group.containsDoor(door) && group.isDoorOpen(door));
+		for (int g = 0; g < groupList.size(); g++) {
+			ButtonDoorGroup group = groupList.get(g);
+			if (group.containsDoor(door) && group.isDoorOpen(door)) {
+				return true;
+			}
+		}
+		return false;
 	}
 
 	/**
@@ -125,5 +141,6 @@ public class ButtonDoorGroupManager {
 
 		groups.values().forEach(group -> group.clear());
 		groups.clear();
+		groupList.clear();
 	}
 }
@@ -2,6 +2,7 @@ package sb.model.tile.doormechanism;
 
 import sb.model.misc.Direction;
 import sb.model.misc.Vector;
+import sb.model.misc.ZobristHash;
 import sb.model.moveable.Moveable;
 import sb.model.tile.Tile;
 
@@ -34,7 +35,9 @@ public class Door extends Tile {
 	public boolean setOpen(boolean open) {
 
 		boolean wasOpen = this.open;
+		hashState();
 		this.open = open;
+		hashState();
 		return open != wasOpen;
 	}
 
@@ -69,4 +72,11 @@ public class Door extends Tile {
 
 		return false;
 	}
+
+	@Override protected void hashState() {
+
+		if (open) {
+			toggleHash(ZobristHash.Feature.OPEN_DOOR, 0);
+		}
+	}
 }
@@ -18,7 +18,11 @@ public class ParityGroup extends ButtonDoorGroup {
 	 */
 	@Override protected boolean isDoorOpenInternal(Door door) {
 
-		long buttonsPressed = getPressedButtonsCount();
+		return isOpen(getPressedButtonsCount());
+	}
+
+	@Override public boolean isOpen(long buttonsPressed) {
+
 		return (buttonsPressed >= 2) && ((buttonsPressed % 2) == 0);
 	}
 
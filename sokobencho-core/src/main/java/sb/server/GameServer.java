@@ -0,0 +1,202 @@
+package sb.server;
+
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Hosts many independent game sessions in one JVM. Every connection to the loopback port is a session playing its own
+ * {@link sb.model.Level} on a thread of its own, which is a virtual thread if the runtime has them.
+ * <p>
+ * The protocol is line based. On connecting, the server sends <code>HELLO levels</code> with the number of levels and
+ * loads the first level. Every command line is answered with exactly one line:
+ * <ul>
+ * <li><code>MOVE lurd</code> moves the player by one or more LURD letters, stopping at the first move that is not
+ * possible. Answered with the state, whose status is <code>BLOCKED</code> if a move was not possible.</li>
+ * <li><code>RESET</code> reloads the current level, <code>NEXT</code> loads the next one and <code>LEVEL n</code>
+ * loads the level with the given number, counted from 1. Answered with the state.</li>
+ * <li><code>STATE</code> is answered with the state.</li>
+ * <li><code>STATS</code> is answered with <code>STATS sessions heapBytes</code> and the heap in use. Only if the server
+ * allows it, a garbage collection is run first, so only live objects are counted. Since that pauses all sessions, it
+ * is meant for load tests.</li>
+ * <li><code>QUIT</code> is answered with <code>BYE</code> and closes the connection.</li>
+ * </ul>
+ * The state is <code>OK|BLOCKED level x y moves pushes solved</code> with the moves and pushes since the level was
+ * loaded and solved being 0 or 1. Unknown commands are answered with <code>ERR message</code>.
+ */
+public class GameServer {
+
+	/**
+	 * The port the server listens on if none is given
+	 */
+	public static final int DEFAULT_PORT = 7777;
+
+	/**
+	 * Stack size of the platform threads running sessions if there are no virtual threads. Sessions need only
+	 * shallow stacks.
+	 */
+	private static final long PLATFORM_STACK_SIZE = 256 * 1024;
+
+	/**
+	 * The factory of executors running every task on a new virtual thread, or null if the runtime has no virtual
+	 * threads. It is looked up once by reflection, as the code is compiled for Java 8.
+	 */
+	private static final Method VIRTUAL_THREAD_EXECUTOR = findVirtualThreadExecutor();
+
+	private final ServerSocket serverSocket;
+
+	private final ExecutorService sessions;
+
+	/**
+	 * May clients run a garbage collection by {@code STATS}?
+	 */
+	private final boolean allowGc;
+
+	/**
+	 * Number of open sessions
+	 */
+	private final AtomicInteger sessionCount = new AtomicInteger();
+
+	/**
+	 * Binds the server to a port of the loopback interface
+	 *
+	 * @param port The port, or 0 for any free port
+	 * @throws IOException
+	 */
+	public GameServer(int port) throws IOException {
+
+		this(port, false);
+	}
+
+	/**
+	 * Binds the server to a port of the loopback interface
+	 *
+	 * @param port    The port, or 0 for any free port
+	 * @param allowGc May clients run a garbage collection to measure the heap, e.g. for a load test?
+	 * @throws IOException
+	 */
+	public GameServer(int port, boolean allowGc) throws IOException {
+
+		this.allowGc = allowGc;
+		serverSocket = new ServerSocket(port, 1024, InetAddress.getLoopbackAddress());
+		sessions = newThreadPerTaskExecutor("game-session");
+	}
+
+	/**
+	 * Usage: GameServer [port] [--allow-gc]
+	 *
+	 * @param args
+	 * @throws IOException
+	 */
+	public static void main(String[] args) throws IOException {
+
+		int port = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_PORT;
+		boolean allowGc = args.length > 1 && args[1].equals("--allow-gc");
+		GameServer server = new GameServer(port, allowGc);
+		System.out.println("Listening on port " + server.getPort() + (hasVirtualThreads() ? " with virtual threads" : " with platform threads"));
+		server.serve();
+	}
+
+	/**
+	 * Accepts connections and starts a session for each until the server is stopped.
+	 *
+	 * @throws IOException
+	 */
+	public void serve() throws IOException {
+
+		try {
+			while (true) {
+				Socket socket;
+				try {
+					socket = serverSocket.accept();
+				} catch (SocketException e) {
+					// Closed by stop()
+					return;
+				}
+				socket.setTcpNoDelay(true);
+				sessions.execute(new GameSession(socket, sessionCount, allowGc));
+			}
+		} finally {
+			sessions.shutdown();
+		}
+	}
+
+	/**
+	 * Stops accepting connections. Open sessions go on until their clients quit.
+	 */
+	public void stop() {
+
+		try {
+			serverSocket.close();
+		} catch (IOException e) {
+			e.printStackTrace();
+		}
+	}
+
+	public int getPort() {
+
+		return serverSocket.getLocalPort();
+	}
+
+	public int getSessionCount() {
+
+		return sessionCount.get();
+	}
+
+	/**
+	 * Are sessions run by virtual threads?
+	 *
+	 * @return
+	 */
+	public static boolean hasVirtualThreads() {
+
+		return VIRTUAL_THREAD_EXECUTOR != null;
+	}
+
+	/**
+	 * Looks up the factory of executors running every task on a new virtual thread. Before Java 21 virtual threads
+	 * are a preview feature and creating such an executor fails unless previews are enabled, so one is created to
+	 * find out.
+	 *
+	 * @return The factory, or null if the runtime has no virtual threads
+	 */
+	private static Method findVirtualThreadExecutor() {
+
+		try {
+			Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+			((ExecutorService) factory.invoke(null)).shutdown();
+			return factory;
+		} catch (ReflectiveOperationException e) {
+			return null;
+		}
+	}
+
+	/**
+	 * Creates an executor running every task on a new thread, as sessions block while waiting for their peer. The
+	 * threads are virtual threads if the runtime has them, otherwise daemon threads with small stacks.
+	 *
+	 * @param name The name of platform threads
+	 * @return
+	 */
+	static ExecutorService newThreadPerTaskExecutor(String name) {
+
+		if (VIRTUAL_THREAD_EXECUTOR != null) {
+			try {
+				return (ExecutorService) VIRTUAL_THREAD_EXECUTOR.invoke(null);
+			} catch (ReflectiveOperationException e) {
+				throw new IllegalStateException("Virtual threads could be created before", e);
+			}
+		}
+		return Executors.newCachedThreadPool(runnable -> {
+			Thread thread = new Thread(null, runnable, name, PLATFORM_STACK_SIZE);
+			thread.setDaemon(true);
+			return thread;
+		});
+	}
+}
@@ -0,0 +1,194 @@
+package sb.server;
+
+import sb.model.Level;
+import sb.model.MoveResult;
+import sb.model.misc.Vector;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * One client of the {@link GameServer}, playing its own level. Runs the protocol until the client quits or the
+ * connection is lost. Like the controller of the game, it only moves the player while the level is not solved.
+ */
+class GameSession implements Runnable {
+
+	/**
+	 * Size of the buffer for reading commands. Commands are short, and a small buffer lets one JVM hold more
+	 * sessions than the 8 KB buffers of readers and writers would.
+	 */
+	private static final int BUFFER_SIZE = 256;
+
+	/**
+	 * Longest command accepted, in chars. The connection is closed if a line is longer.
+	 */
+	private static final int MAX_LINE_LENGTH = 1 << 16;
+
+	private final Socket socket;
+
+	/**
+	 * Number of open sessions of the server
+	 */
+	private final AtomicInteger sessionCount;
+
+	/**
+	 * May the client run a garbage collection by {@code STATS}?
+	 */
+	private final boolean allowGc;
+
+	private final Level level = new Level();
+
+	private final byte[] buffer = new byte[BUFFER_SIZE];
+
+	/**
+	 * Position of the next unread byte in the buffer and the end of the read bytes
+	 */
+	private int position;
+
+	private int limit;
+
+	/**
+	 * Number of moves and pushes since the level was loaded
+	 */
+	private int moves;
+
+	private int pushes;
+
+	private boolean solved;
+
+	GameSession(Socket socket, AtomicInteger sessionCount, boolean allowGc) {
+
+		this.socket = socket;
+		this.sessionCount = sessionCount;
+		this.allowGc = allowGc;
+	}
+
+	@Override public void run() {
+
+		sessionCount.incrementAndGet();
+		try (Socket socket = this.socket) {
+			InputStream in = socket.getInputStream();
+			OutputStream out = socket.getOutputStream();
+			level.nextLevel();
+			out.write(("HELLO " + level.getLevelCount() + "\n").getBytes(StandardCharsets.US_ASCII));
+
+			String line;
+			while ((line = readLine(in)) != null) {
+				String answer = handle(line.trim());
+				out.write((answer + "\n").getBytes(StandardCharsets.US_ASCII));
+				if (answer.equals("BYE")) {
+					break;
+				}
+			}
+		} catch (IOException e) {
+			// The client has gone, there is no one to tell
+		} finally {
+			sessionCount.decrementAndGet();
+		}
+	}
+
+	/**
+	 * Reads a line of ASCII text
+	 *
+	 * @param in
+	 * @return The line without its line break, or null at the end of the stream
+	 * @throws IOException
+	 */
+	private String readLine(InputStream in) throws IOException {
+
+		StringBuilder line = new StringBuilder();
+		while (true) {
+			if (position == limit) {
+				int read = in.read(buffer);
+				if (read <= 0) {
+					return line.length() > 0 ? line.toString() : null;
+				}
+				position = 0;
+				limit = read;
+			}
+			char c = (char) buffer[position++];
+			if (c == '\n') {
+				return line.toString();
+			}
+			if (line.length() == MAX_LINE_LENGTH) {
+				throw new IOException("Command too long");
+			}
+			line.append(c);
+		}
+	}
+
+	/**
+	 * Runs a command and returns the answer
+	 *
+	 * @param command
+	 * @return
+	 */
+	private String handle(String command) {
+
+		int space = command.indexOf(' ');
+		String name = space < 0 ? command : command.substring(0, space);
+		String argument = space < 0 ? "" : command.substring(space + 1).trim();
+		switch (name.toUpperCase()) {
+			case "MOVE":
+				if (solved) {
+					return state("OK");
+				}
+				MoveResult result = level.applyMoves(argument);
+				moves += result.getMoveCount();
+				pushes += result.getPushCount();
+				solved = result.isCompleted();
+				return state(result.isLegal() ? "OK" : "BLOCKED");
+			case "RESET":
+				level.resetLevel();
+				return loaded();
+			case "NEXT":
+				if (level.getCurrentLevelIndex() >= level.getLevelCount()) {
+					return "ERR there is no next level";
+				}
+				level.nextLevel();
+				return loaded();
+			case "LEVEL":
+				try {
+					level.selectLevel(Integer.parseInt(argument));
+				} catch (IllegalArgumentException e) {
+					return "ERR there is no level " + argument;
+				}
+				return loaded();
+			case "STATE":
+				return state("OK");
+			case "STATS":
+				Runtime runtime = Runtime.getRuntime();
+				if (allowGc) {
+					System.gc();
+				}
+				return "STATS " + sessionCount.get() + " " + (runtime.totalMemory() - runtime.freeMemory());
+			case "QUIT":
+				return "BYE";
+			default:
+				return "ERR unknown command " + name;
+		}
+	}
+
+	/**
+	 * Starts counting for a newly loaded level and returns its state
+	 *
+	 * @return
+	 */
+	private String loaded() {
+
+		moves = 0;
+		pushes = 0;
+		solved = false;
+		return state("OK");
+	}
+
+	private String state(String status) {
+
+		Vector player = level.getPlayerPos();
+		return status + " " + level.getCurrentLevelIndex() + " " + player.getX() + " " + player.getY() + " " + moves + " " + pushes + " " + (solved ? 1 : 0);
+	}
+}
@@ -0,0 +1,235 @@
+package sb.server;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Load test of a {@link GameServer}. Opens a number of sessions, each loading a random level, and measures how much
+ * heap the server needs per session. Then every session walks its player randomly, one move per command, and the
+ * latency of the commands is reported.
+ * <p>
+ * The heap is only measured exactly if the server runs a garbage collection before answering {@code STATS}, so it
+ * should be started with --allow-gc. Otherwise garbage is counted as well.
+ */
+public class LoadGenerator {
+
+	/**
+	 * Number of moves after which a client resets its level, so players do not stay stuck in a corner
+	 */
+	private static final int MOVES_PER_RESET = 200;
+
+	private static final char[] MOVES = {'u', 'r', 'd', 'l'};
+
+	private static final double GIGABYTE = 1024.0 * 1024 * 1024;
+
+	private final String host;
+
+	private final int port;
+
+	private final int sessions;
+
+	private final int commandsPerSession;
+
+	/**
+	 * @param host
+	 * @param port
+	 * @param sessions           Number of clients connecting at the same time
+	 * @param commandsPerSession Number of moves every client makes
+	 */
+	public LoadGenerator(String host, int port, int sessions, int commandsPerSession) {
+
+		this.host = host;
+		this.port = port;
+		this.sessions = sessions;
+		this.commandsPerSession = commandsPerSession;
+	}
+
+	/**
+	 * Usage: LoadGenerator [sessions] [commandsPerSession] [host:port]
+	 *
+	 * @param args
+	 * @throws Exception
+	 */
+	public static void main(String[] args) throws Exception {
+
+		int sessions = args.length > 0 ? Integer.parseInt(args[0]) : 1000;
+		int commands = args.length > 1 ? Integer.parseInt(args[1]) : 1000;
+		String host = "localhost";
+		int port = GameServer.DEFAULT_PORT;
+		if (args.length > 2) {
+			int colon = args[2].lastIndexOf(':');
+			host = colon < 0 ? args[2] : args[2].substring(0, colon);
+			port = colon < 0 ? port : Integer.parseInt(args[2].substring(colon + 1));
+		}
+		new LoadGenerator(host, port, sessions, commands).run();
+	}
+
+	/**
+	 * Runs the load test and prints the results.
+	 *
+	 * @throws Exception
+	 */
+	public void run() throws Exception {
+
+		try (Connection control = new Connection(host, port)) {
+			long baseline = heapBytes(control.command("STATS"));
+
+			CountDownLatch connected = new CountDownLatch(sessions);
+			CountDownLatch start = new CountDownLatch(1);
+			ExecutorService clients = GameServer.newThreadPerTaskExecutor("load-client");
+			List<Future<long[]>> latencies = new ArrayList<>(sessions);
+			for (int i = 0; i < sessions; i++) {
+				latencies.add(clients.submit(() -> walk(connected, start)));
+			}
+			connected.await();
+
+			String stats = control.command("STATS");
+			long heap = heapBytes(stats) - baseline;
+			System.out.println(stats.split(" ")[1] + " sessions open, " + heap / sessions + " bytes of heap per session, "
+					+ (heap > 0 ? Math.round(sessions / (heap / GIGABYTE)) : "-") + " sessions per GB");
+
+			long startTime = System.nanoTime();
+			start.countDown();
+			long[] all = new long[sessions * commandsPerSession];
+			int count = 0;
+			for (Future<long[]> future : latencies) {
+				long[] latency = future.get();
+				System.arraycopy(latency, 0, all, count, latency.length);
+				count += latency.length;
+			}
+			long duration = System.nanoTime() - startTime;
+			clients.shutdown();
+
+			Arrays.sort(all, 0, count);
+			System.out.printf("%d commands in %.1f s, %.0f commands/s%n", count, duration / 1e9, count / (duration / 1e9));
+			System.out.printf("latency p50 %.1f us, p99 %.1f us, max %.1f us%n", percentile(all, count, 0.5) / 1e3,
+					percentile(all, count, 0.99) / 1e3, count > 0 ? all[count - 1] / 1e3 : 0.0);
+		}
+	}
+
+	/**
+	 * Connects a client and loads a random level, waits for all clients to connect and then walks randomly.
+	 *
+	 * @param connected Counted down once the client has loaded its level
+	 * @param start     Released once all clients have connected
+	 * @return The latency of every move in nanoseconds
+	 * @throws Exception
+	 */
+	private long[] walk(CountDownLatch connected, CountDownLatch start) throws Exception {
+
+		ThreadLocalRandom random = ThreadLocalRandom.current();
+		long[] latency = new long[commandsPerSession];
+		Connection connection;
+		try {
+			connection = new Connection(host, port);
+		} catch (IOException e) {
+			connected.countDown();
+			throw e;
+		}
+		try {
+			try {
+				int levels = Integer.parseInt(connection.hello.split(" ")[1]);
+				connection.command("LEVEL " + (random.nextInt(levels) + 1));
+			} finally {
+				connected.countDown();
+			}
+			start.await();
+
+			int movesSinceReset = 0;
+			for (int i = 0; i < commandsPerSession; i++) {
+				long begin = System.nanoTime();
+				String state = connection.command("MOVE " + MOVES[random.nextInt(MOVES.length)]);
+				latency[i] = System.nanoTime() - begin;
+				if (state.endsWith(" 1") || ++movesSinceReset == MOVES_PER_RESET) {
+					connection.command("RESET");
+					movesSinceReset = 0;
+				}
+			}
+			connection.command("QUIT");
+		} finally {
+			connection.close();
+		}
+		return latency;
+	}
+
+	private static long heapBytes(String stats) {
+
+		return Long.parseLong(stats.split(" ")[2]);
+	}
+
+	/**
+	 * @param sorted Values sorted in ascending order
+	 * @param count  Number of values
+	 * @param p      Between 0 and 1
+	 * @return The value below which the given part of the values lies
+	 */
+	private static double percentile(long[] sorted, int count, double p) {
+
+		if (count == 0) {
+			return 0;
+		}
+		return sorted[Math.min(count - 1, (int) Math.ceil(p * count) - 1)];
+	}
+
+	/**
+	 * A connection to the server, speaking one command at a time
+	 */
+	private static class Connection implements AutoCloseable {
+
+		private final Socket socket;
+
+		private final BufferedReader in;
+
+		private final OutputStream out;
+
+		/**
+		 * The greeting of the server
+		 */
+		private final String hello;
+
+		Connection(String host, int port) throws IOException {
+
+			socket = new Socket(host, port);
+			socket.setTcpNoDelay(true);
+			in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.US_ASCII));
+			out = socket.getOutputStream();
+			hello = in.readLine();
+		}
+
+		/**
+		 * Sends a command and waits for the answer
+		 *
+		 * @param command
+		 * @return
+		 * @throws IOException
+		 */
+		String command(String command) throws IOException {
+
+			out.write((command + "\n").getBytes(StandardCharsets.US_ASCII));
+			String answer = in.readLine();
+			if (answer == null) {
+				throw new IOException("Connection closed by the server");
+			}
+			if (answer.startsWith("ERR")) {
+				throw new IOException(answer);
+			}
+			return answer;
+		}
+
+		@Override public void close() throws IOException {
+
+			socket.close();
+		}
+	}
+}
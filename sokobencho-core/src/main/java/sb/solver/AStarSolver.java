@@ -0,0 +1,166 @@
+package sb.solver;
+
+import sb.model.bitboard.BitboardLevel;
+
+import java.util.PriorityQueue;
+
+/**
+ * An A* search over pushes. The heuristic is the cost of a minimum-cost matching between boxes and targets on the
+ * push distances (see {@link Assignment}), which never overestimates and changes by at most one per push, so the
+ * first solution found uses the minimal number of pushes.
+ * <p>
+ * For every state, the fewest pushes it has been reached with are kept in an {@link OffHeapTable}. Since the bound
+ * is consistent, a state is never reached with fewer pushes after it has been expanded, so no closed set is needed.
+ * <p>
+ * Optionally, pushes through tunnels and into the goal room are combined into macro moves (see {@link MacroMoves}).
+ * The search then stores far fewer states, but the solution is no longer guaranteed to use the minimal number of
+ * pushes.
+ */
+public class AStarSolver implements Solver {
+
+	/**
+	 * Number of states the table of visited states is created for
+	 */
+	private static final int INITIAL_CAPACITY = 1 << 16;
+
+	/**
+	 * Number of nodes expanded by the latest search
+	 */
+	private long expandedNodes;
+
+	/**
+	 * The visited states of the latest search
+	 */
+	private OffHeapTable visited;
+
+	/**
+	 * Are macro moves used?
+	 */
+	private final boolean macroMoves;
+
+	public AStarSolver() {
+
+		this(false);
+	}
+
+	/**
+	 * @param macroMoves Should pushes through tunnels and into the goal room be combined into macro moves?
+	 */
+	public AStarSolver(boolean macroMoves) {
+
+		this.macroMoves = macroMoves;
+	}
+
+	@Override public Solution solve(BitboardLevel level, SearchMonitor monitor) {
+
+		expandedNodes = 0;
+		monitor.start(level);
+		PushExpander expander = new PushExpander(level, macroMoves);
+		monitor.trackExpander(expander);
+		PushDistances distances = new PushDistances(level);
+		SearchNode root = expander.createRoot();
+
+		Assignment assignment = Assignment.forLevel(level, distances);
+		if (assignment == null || assignment.getCost() >= PushDistances.INFINITE) {
+			return null;
+		}
+
+		PriorityQueue<Entry> open = new PriorityQueue<>();
+		visited = new OffHeapTable(INITIAL_CAPACITY);
+		monitor.trackOffHeap(visited::getMemoryUsage);
+		monitor.trackTable(visited);
+		monitor.trackFrontier(open::size);
+		Entry rootEntry = new Entry(root, assignment);
+		visited.putIfShallower(rootEntry.key, rootEntry.check, 0);
+		open.add(rootEntry);
+		while (!open.isEmpty()) {
+			Entry entry = open.poll();
+			SearchNode node = entry.node;
+			if (visited.getDepth(entry.key, entry.check) < node.getDepth()) {
+				// The state has been reached with fewer pushes after this entry was added
+				continue;
+			}
+			if (node.isCompleted()) {
+				return expander.toSolution(node);
+			}
+
+			if (!monitor.expand(node)) {
+				return null;
+			}
+			expandedNodes++;
+			for (SearchNode successor : expander.expand(node)) {
+				Assignment successorAssignment = entry.assignment.moveBox(successor.getPushedFrom(), successor.getPushedTo());
+				if (successorAssignment.getCost() < PushDistances.INFINITE) {
+					Entry successorEntry = new Entry(successor, successorAssignment);
+					if (visited.putIfShallower(successorEntry.key, successorEntry.check, successor.getDepth())) {
+						open.add(successorEntry);
+					}
+				} else {
+					expander.countPrune(PruneRule.MATCHING);
+				}
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Macro moves leave out some of the states, so only a search without them proves a level unsolvable.
+	 *
+	 * @return
+	 */
+	@Override public boolean provesUnsolvable() {
+
+		return !macroMoves;
+	}
+
+	public long getExpandedNodes() {
+
+		return expandedNodes;
+	}
+
+	/**
+	 * Returns the visited states of the latest search, e.g. for its statistics
+	 *
+	 * @return
+	 */
+	public OffHeapTable getVisited() {
+
+		return visited;
+	}
+
+	/**
+	 * An entry of the open list, ordered by estimated total pushes and then by depth, deepest first.
+	 */
+	private static class Entry implements Comparable<Entry> {
+
+		private final SearchNode node;
+
+		private final Assignment assignment;
+
+		private final int estimate;
+
+		/**
+		 * The key and the check of the state in the table of visited states
+		 */
+		private final long key;
+
+		private final long check;
+
+		Entry(SearchNode node, Assignment assignment) {
+
+			this.node = node;
+			this.assignment = assignment;
+			this.estimate = node.getDepth() + assignment.getCost();
+			this.key = TranspositionTable.key(node.getState());
+			this.check = OffHeapTable.check(node.getState());
+		}
+
+		@Override public int compareTo(Entry other) {
+
+			if (estimate != other.estimate) {
+				return Integer.compare(estimate, other.estimate);
+			}
+			return Integer.compare(other.node.getDepth(), node.getDepth());
+		}
+	}
+}
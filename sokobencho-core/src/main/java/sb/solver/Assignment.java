@@ -0,0 +1,229 @@
+package sb.solver;
+
+import sb.model.bitboard.BitboardLevel;
+
+import java.util.Arrays;
+
+/**
+ * A minimum-cost perfect matching between the boxes and the targets of a state, found by the Hungarian method on the
+ * push distances. Its cost is a lower bound of the pushes still needed to solve the state.
+ * <p>
+ * Boxes are the rows of the cost matrix, targets the columns. If there are more boxes than targets, dummy targets
+ * with cost zero make the matrix square. The dual potentials are kept, so after a single box has moved only its row
+ * has to be matched again by one augmenting path, which takes O(n^2) instead of O(n^3).
+ * Assignments are immutable once created.
+ */
+class Assignment {
+
+	private final PushDistances distances;
+
+	/**
+	 * The cell of every box, indexed by row
+	 */
+	private final int[] boxCells;
+
+	/**
+	 * Row potentials, index 0 is unused
+	 */
+	private final int[] u;
+
+	/**
+	 * Column potentials, index 0 is unused
+	 */
+	private final int[] v;
+
+	/**
+	 * The row matched to every column, index 0 is used while augmenting
+	 */
+	private final int[] match;
+
+	/**
+	 * The total cost of the matching
+	 */
+	private int cost;
+
+	private Assignment(PushDistances distances, int[] boxCells, int[] u, int[] v, int[] match) {
+
+		this.distances = distances;
+		this.boxCells = boxCells;
+		this.u = u;
+		this.v = v;
+		this.match = match;
+	}
+
+	/**
+	 * Computes the matching for the given boxes from scratch. There must be at least as many boxes as targets.
+	 *
+	 * @param distances
+	 * @param boxCells
+	 * @return
+	 */
+	static Assignment create(PushDistances distances, int[] boxCells) {
+
+		int n = boxCells.length;
+		Assignment assignment = new Assignment(distances, boxCells.clone(), new int[n + 1], new int[n + 1], new int[n + 1]);
+		for (int row = 1; row <= n; row++) {
+			assignment.augment(row);
+		}
+		assignment.updateCost();
+		return assignment;
+	}
+
+	/**
+	 * Computes the matching for the boxes of the current state of the given level from scratch.
+	 *
+	 * @param level
+	 * @param distances The push distances of the level
+	 * @return The matching, or null if there are fewer boxes than targets
+	 */
+	static Assignment forLevel(BitboardLevel level, PushDistances distances) {
+
+		int count = 0;
+		for (int cell = 0; cell < level.getCellCount(); cell++) {
+			if (level.isBox(cell)) {
+				count++;
+			}
+		}
+		if (count < distances.getTargetCount()) {
+			return null;
+		}
+		int[] boxCells = new int[count];
+		count = 0;
+		for (int cell = 0; cell < level.getCellCount(); cell++) {
+			if (level.isBox(cell)) {
+				boxCells[count++] = cell;
+			}
+		}
+		return create(distances, boxCells);
+	}
+
+	/**
+	 * Returns the matching after the box on 'from' has moved to 'to'. If there is no box on 'from', e.g. because a
+	 * rock was pushed, this assignment is returned.
+	 *
+	 * @param from
+	 * @param to
+	 * @return
+	 */
+	Assignment moveBox(int from, int to) {
+
+		int moved = 0;
+		for (int i = 0; i < boxCells.length; i++) {
+			if (boxCells[i] == from) {
+				moved = i + 1;
+				break;
+			}
+		}
+		if (moved == 0) {
+			return this;
+		}
+
+		Assignment assignment = new Assignment(distances, boxCells.clone(), u.clone(), v.clone(), match.clone());
+		assignment.boxCells[moved - 1] = to;
+		assignment.rematch(moved);
+		assignment.updateCost();
+		return assignment;
+	}
+
+	/**
+	 * The total number of pushes of the matching. It is at least {@link PushDistances#INFINITE} if a target cannot
+	 * be reached by any box.
+	 *
+	 * @return
+	 */
+	int getCost() {
+
+		return cost;
+	}
+
+	/**
+	 * Unmatches a row whose costs have changed and matches it again. Lowering the row potential to the smallest
+	 * reduced cost of the row keeps all potentials feasible, so a single augmenting path restores the optimum.
+	 *
+	 * @param row
+	 */
+	private void rematch(int row) {
+
+		int n = boxCells.length;
+		int minimum = Integer.MAX_VALUE;
+		for (int col = 1; col <= n; col++) {
+			if (match[col] == row) {
+				match[col] = 0;
+			}
+			minimum = Math.min(minimum, cost(row, col) - v[col]);
+		}
+		u[row] = minimum;
+		augment(row);
+	}
+
+	/**
+	 * Matches a free row by a shortest augmenting path over the reduced costs, adjusting the potentials on the way.
+	 *
+	 * @param row
+	 */
+	private void augment(int row) {
+
+		int n = boxCells.length;
+		int[] minv = new int[n + 1];
+		int[] way = new int[n + 1];
+		boolean[] used = new boolean[n + 1];
+		Arrays.fill(minv, Integer.MAX_VALUE);
+		match[0] = row;
+		int col0 = 0;
+		do {
+			used[col0] = true;
+			int row0 = match[col0];
+			int delta = Integer.MAX_VALUE;
+			int col1 = 0;
+			for (int col = 1; col <= n; col++) {
+				if (!used[col]) {
+					int reduced = cost(row0, col) - u[row0] - v[col];
+					if (reduced < minv[col]) {
+						minv[col] = reduced;
+						way[col] = col0;
+					}
+					if (minv[col] < delta) {
+						delta = minv[col];
+						col1 = col;
+					}
+				}
+			}
+			for (int col = 0; col <= n; col++) {
+				if (used[col]) {
+					u[match[col]] += delta;
+					v[col] -= delta;
+				} else {
+					minv[col] -= delta;
+				}
+			}
+			col0 = col1;
+		} while (match[col0] != 0);
+
+		// Flip the matching along the augmenting path
+		do {
+			int col1 = way[col0];
+			match[col0] = match[col1];
+			col0 = col1;
+		} while (col0 != 0);
+	}
+
+	private void updateCost() {
+
+		cost = 0;
+		for (int col = 1; col < match.length; col++) {
+			cost += cost(match[col], col);
+		}
+	}
+
+	/**
+	 * Cost of moving the box of the given row onto the target of the given column. Dummy targets cost nothing.
+	 *
+	 * @param row
+	 * @param col
+	 * @return
+	 */
+	private int cost(int row, int col) {
+
+		return col <= distances.getTargetCount() ? distances.get(col - 1, boxCells[row - 1]) : 0;
+	}
+}
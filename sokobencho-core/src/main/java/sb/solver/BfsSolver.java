@@ -0,0 +1,85 @@
+package sb.solver;
+
+import sb.model.bitboard.BitboardLevel;
+
+import java.util.ArrayDeque;
+
+/**
+ * A breadth-first search over pushes. Since every layer of the search adds one push, the first solution found uses
+ * the minimal number of pushes. Visited states are kept in an {@link OffHeapTable}, so only the frontier and its
+ * ancestors take heap memory.
+ */
+public class BfsSolver implements Solver {
+
+	/**
+	 * Number of states the visited table is created for
+	 */
+	private static final int INITIAL_CAPACITY = 1 << 16;
+
+	/**
+	 * Number of nodes expanded by the latest search
+	 */
+	private long expandedNodes;
+
+	/**
+	 * The visited states of the latest search
+	 */
+	private OffHeapTable visited;
+
+	@Override public Solution solve(BitboardLevel level, SearchMonitor monitor) {
+
+		expandedNodes = 0;
+		monitor.start(level);
+		PushExpander expander = new PushExpander(level);
+		monitor.trackExpander(expander);
+		SearchNode root = expander.createRoot();
+		if (root.isCompleted()) {
+			return expander.toSolution(root);
+		}
+
+		visited = new OffHeapTable(INITIAL_CAPACITY);
+		monitor.trackOffHeap(visited::getMemoryUsage);
+		monitor.trackTable(visited);
+		ArrayDeque<SearchNode> frontier = new ArrayDeque<>();
+		monitor.trackFrontier(frontier::size);
+		visited.putIfShallower(TranspositionTable.key(root.getState()), OffHeapTable.check(root.getState()), 0);
+		frontier.add(root);
+		while (!frontier.isEmpty()) {
+			SearchNode node = frontier.poll();
+			if (!monitor.expand(node)) {
+				return null;
+			}
+			expandedNodes++;
+			for (SearchNode successor : expander.expand(node)) {
+				long[] state = successor.getState();
+				if (visited.putIfShallower(TranspositionTable.key(state), OffHeapTable.check(state), successor.getDepth())) {
+					if (successor.isCompleted()) {
+						return expander.toSolution(successor);
+					}
+					frontier.add(successor);
+				}
+			}
+		}
+		return null;
+	}
+
+	@Override public boolean provesUnsolvable() {
+
+		return true;
+	}
+
+	public long getExpandedNodes() {
+
+		return expandedNodes;
+	}
+
+	/**
+	 * Returns the visited states of the latest search, e.g. for its statistics
+	 *
+	 * @return
+	 */
+	public OffHeapTable getVisited() {
+
+		return visited;
+	}
+}
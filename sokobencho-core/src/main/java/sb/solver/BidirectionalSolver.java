@@ -0,0 +1,173 @@
+package sb.solver;
+
+import sb.model.bitboard.BitboardLevel;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A breadth-first search over pushes that runs from both ends: forwards by pushing from the start and backwards by
+ * pulling from the completed level (see {@link PullExpander}). The side with the smaller frontier is expanded one
+ * whole layer at a time until a state is found by both sides. Each side only has to search about half of the
+ * solution length, which saves most of the nodes on levels with long solutions. The solution uses the minimal number
+ * of pushes.
+ * <p>
+ * Pulls are only defined on reversible levels (see {@link BitboardLevel#isReversible()}). Other levels are solved by
+ * a {@link BfsSolver}.
+ */
+public class BidirectionalSolver implements Solver {
+
+	/**
+	 * Number of nodes expanded by the latest search
+	 */
+	private long expandedNodes;
+
+	/**
+	 * Number of nodes expanded backwards by the latest search
+	 */
+	private long expandedBackwards;
+
+	/**
+	 * The shortest connection found by the latest layer: the forward and the backward node of the same state
+	 */
+	private SearchNode meetingForward;
+
+	private SearchNode meetingBackward;
+
+	@Override public Solution solve(BitboardLevel level, SearchMonitor monitor) {
+
+		expandedNodes = 0;
+		expandedBackwards = 0;
+		if (!level.isReversible()) {
+			BfsSolver fallback = new BfsSolver();
+			Solution solution = fallback.solve(level, monitor);
+			expandedNodes = fallback.getExpandedNodes();
+			return solution;
+		}
+
+		monitor.start(level);
+		PushExpander pushes = new PushExpander(level);
+		PullExpander pulls = new PullExpander(level);
+		monitor.trackExpander(pushes);
+		monitor.trackExpander(pulls);
+		SearchNode root = pushes.createRoot();
+		if (root.isCompleted()) {
+			return pushes.toSolution(root);
+		}
+
+		Map<SearchNode, SearchNode> forward = new HashMap<>();
+		Map<SearchNode, SearchNode> backward = new HashMap<>();
+		List<SearchNode> forwardLayer = new ArrayList<>();
+		forwardLayer.add(root);
+		forward.put(root, root);
+		List<SearchNode> backwardLayer = pulls.createGoals();
+		for (SearchNode goal : backwardLayer) {
+			backward.put(goal, goal);
+		}
+
+		meetingForward = null;
+		meetingBackward = null;
+		while (!forwardLayer.isEmpty() && !backwardLayer.isEmpty()) {
+			if (forwardLayer.size() <= backwardLayer.size()) {
+				forwardLayer = expandLayer(pushes, forwardLayer, forward, backward, monitor, true);
+			} else {
+				backwardLayer = expandLayer(pulls, backwardLayer, backward, forward, monitor, false);
+			}
+			if (meetingForward != null) {
+				return toSolution(pushes, meetingForward, meetingBackward);
+			}
+			if (monitor.isStopped()) {
+				return null;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Expands all nodes of a layer of one side. Every state reached for the first time by this side is checked
+	 * against the states of the other side, keeping the connection with the fewest pushes in total. Stops early if the
+	 * monitor says so.
+	 *
+	 * @param expander
+	 * @param layer
+	 * @param visited  The nodes found by this side
+	 * @param other    The nodes found by the other side
+	 * @param monitor
+	 * @param forwards Is the layer expanded by pushing?
+	 * @return The next layer
+	 */
+	private List<SearchNode> expandLayer(PushExpander expander, List<SearchNode> layer, Map<SearchNode, SearchNode> visited,
+			Map<SearchNode, SearchNode> other, SearchMonitor monitor, boolean forwards) {
+
+		List<SearchNode> next = new ArrayList<>();
+		int shortest = Integer.MAX_VALUE;
+		for (SearchNode node : layer) {
+			// Only the nodes found forwards lie on a path from the start
+			if (forwards ? !monitor.expand(node) : !monitor.proceed(1)) {
+				break;
+			}
+			expandedNodes++;
+			if (!forwards) {
+				expandedBackwards++;
+			}
+			for (SearchNode successor : expander.expand(node)) {
+				if (visited.putIfAbsent(successor, successor) != null) {
+					continue;
+				}
+				next.add(successor);
+				SearchNode match = other.get(successor);
+				if (match != null && successor.getDepth() + match.getDepth() < shortest) {
+					shortest = successor.getDepth() + match.getDepth();
+					meetingForward = forwards ? successor : match;
+					meetingBackward = forwards ? match : successor;
+				}
+			}
+		}
+		return next;
+	}
+
+	/**
+	 * Joins the pushes leading from the start to the meeting state with the pushes leading from there to the
+	 * completed level.
+	 *
+	 * @param expander
+	 * @param forward
+	 * @param backward
+	 * @return
+	 */
+	private static Solution toSolution(PushExpander expander, SearchNode forward, SearchNode backward) {
+
+		LinkedList<SearchNode> path = new LinkedList<>();
+		for (SearchNode n = forward; n.getParent() != null; n = n.getParent()) {
+			path.addFirst(n);
+		}
+		for (SearchNode n = backward; n.getParent() != null; n = n.getParent()) {
+			path.addLast(n);
+		}
+		return expander.toSolution(path);
+	}
+
+	@Override public boolean provesUnsolvable() {
+
+		return true;
+	}
+
+	public long getExpandedNodes() {
+
+		return expandedNodes;
+	}
+
+	/**
+	 * Returns the number of nodes the latest search expanded by pulling, which are included in
+	 * {@link #getExpandedNodes()}
+	 *
+	 * @return
+	 */
+	public long getExpandedBackwards() {
+
+		return expandedBackwards;
+	}
+}
@@ -0,0 +1,142 @@
+package sb.solver;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * A set of search nodes that many threads can add to at the same time without locking. The nodes are spread over
+ * stripes by their hash, every stripe is an open addressing table whose slots are claimed by compare-and-set.
+ * <p>
+ * A stripe never grows while nodes are added to it. If a stripe has reached its maximum load, {@link #add} reports it
+ * and the caller has to add the node again after calling {@link #grow()}, which must not run concurrently with
+ * {@link #add}. A level-synchronous search does so between two layers.
+ */
+class ConcurrentVisitedSet {
+
+	/**
+	 * Results of {@link #add}
+	 */
+	static final int ADDED = 0;
+	static final int PRESENT = 1;
+	static final int FULL = 2;
+
+	/**
+	 * Number of slots of a new stripe
+	 */
+	private static final int INITIAL_CAPACITY = 1 << 10;
+
+	/**
+	 * Nodes per slot a stripe is filled up to before nodes are rejected
+	 */
+	private static final float MAX_LOAD = 0.75f;
+
+	/**
+	 * Shifts a hash so only the bits selecting its stripe are left
+	 */
+	private final int stripeShift;
+
+	private final AtomicReferenceArray<SearchNode>[] stripes;
+
+	/**
+	 * Number of nodes in every stripe
+	 */
+	private final AtomicInteger[] sizes;
+
+	/**
+	 * Creates a set with at least the given number of stripes, rounded up to a power of two.
+	 *
+	 * @param stripeCount
+	 */
+	ConcurrentVisitedSet(int stripeCount) {
+
+		int count = Integer.highestOneBit(Math.max(1, stripeCount - 1) << 1);
+		stripeShift = Integer.SIZE - Integer.numberOfTrailingZeros(count);
+		@SuppressWarnings("unchecked")
+		AtomicReferenceArray<SearchNode>[] stripes = (AtomicReferenceArray<SearchNode>[]) new AtomicReferenceArray<?>[count];
+		this.stripes = stripes;
+		sizes = new AtomicInteger[count];
+		for (int i = 0; i < count; i++) {
+			stripes[i] = new AtomicReferenceArray<>(INITIAL_CAPACITY);
+			sizes[i] = new AtomicInteger();
+		}
+	}
+
+	/**
+	 * Adds the node if no equal node is present.
+	 *
+	 * @param node
+	 * @return {@link #ADDED}, {@link #PRESENT} or {@link #FULL} if the node could not be added because its stripe is
+	 * full
+	 */
+	int add(SearchNode node) {
+
+		int hash = spread(node.hashCode());
+		int stripe = hash >>> stripeShift;
+		AtomicReferenceArray<SearchNode> table = stripes[stripe];
+		int mask = table.length() - 1;
+		for (int slot = hash & mask; ; slot = (slot + 1) & mask) {
+			SearchNode present = table.get(slot);
+			if (present == null) {
+				// Reserve room first, so there is always a free slot that ends the probing
+				if (sizes[stripe].incrementAndGet() > table.length() * MAX_LOAD) {
+					sizes[stripe].decrementAndGet();
+					return FULL;
+				}
+				if (table.compareAndSet(slot, null, node)) {
+					return ADDED;
+				}
+				sizes[stripe].decrementAndGet();
+				present = table.get(slot);
+			}
+			if (present.equals(node)) {
+				return PRESENT;
+			}
+		}
+	}
+
+	/**
+	 * Doubles the capacity of all stripes that are more than half full. Must not be called while nodes are added.
+	 */
+	void grow() {
+
+		for (int stripe = 0; stripe < stripes.length; stripe++) {
+			AtomicReferenceArray<SearchNode> table = stripes[stripe];
+			if (sizes[stripe].get() > table.length() / 2) {
+				AtomicReferenceArray<SearchNode> grown = new AtomicReferenceArray<>(table.length() * 2);
+				int mask = grown.length() - 1;
+				for (int i = 0; i < table.length(); i++) {
+					SearchNode node = table.get(i);
+					if (node != null) {
+						int slot = spread(node.hashCode()) & mask;
+						while (grown.get(slot) != null) {
+							slot = (slot + 1) & mask;
+						}
+						grown.set(slot, node);
+					}
+				}
+				stripes[stripe] = grown;
+			}
+		}
+	}
+
+	int size() {
+
+		int size = 0;
+		for (AtomicInteger stripeSize : sizes) {
+			size += stripeSize.get();
+		}
+		return size;
+	}
+
+	/**
+	 * Mixes the bits of a hash code, so stripes are selected by the high bits and slots by the low bits.
+	 *
+	 * @param h
+	 * @return
+	 */
+	private static int spread(int h) {
+
+		h *= 0x9e3779b9;
+		return h ^ (h >>> 15);
+	}
+}
@@ -0,0 +1,173 @@
+package sb.solver;
+
+import sb.model.bitboard.Bitboard;
+import sb.model.bitboard.BitboardLevel;
+import sb.model.misc.Direction;
+
+import java.util.Arrays;
+
+/**
+ * Restricts the pushes of a state to a player-inaccessible corral (PI-corral). A corral is a region of floor the
+ * player cannot reach, enclosed by walls and the boxes on its barrier. It is a PI-corral if every barrier box can only
+ * be pushed into the corral and all of these pushes can be done right now. If such a corral contains a target without
+ * box or its barrier a box off target, some box has to be pushed into it eventually, and since the pushes of other
+ * boxes cannot affect it, they can as well be done afterwards. So only the pushes into the corral with the fewest
+ * of them need to be generated, without losing any solution or making one longer.
+ * <p>
+ * The argument only holds for the plain rules, so the pruner is only used on reversible levels (see
+ * {@link BitboardLevel#isReversible()}). Barrier boxes that might be pushed out of the corral once other boxes have
+ * moved make a corral count as not PI. The pruner does not allocate and is not thread safe.
+ */
+class CorralPruner {
+
+	/**
+	 * The level the pushes are generated on, holding the expanded state
+	 */
+	private final BitboardLevel level;
+
+	/**
+	 * The corral id of every cell, 0 for cells not in a corral
+	 */
+	private final int[] corral;
+
+	/**
+	 * The cells of all corrals, each corral as a contiguous range
+	 */
+	private final int[] cells;
+
+	/**
+	 * Marks the barrier boxes already checked, with the number of the check
+	 */
+	private final int[] checked;
+
+	private int check;
+
+	CorralPruner(BitboardLevel level) {
+
+		this.level = level;
+		this.corral = new int[level.getCellCount()];
+		this.cells = new int[level.getCellCount()];
+		this.checked = new int[level.getCellCount()];
+	}
+
+	/**
+	 * Finds the PI-corral of the current state of the level with the fewest pushes and removes all other pushes.
+	 * If there is none, the pushes are left unchanged.
+	 *
+	 * @param reachable  The cells the player can reach
+	 * @param candidates The possible pushes, each as its push cell shifted left by two bits and the index of its
+	 *                   direction in {@link PushExpander#DIRECTIONS}
+	 * @param count      Number of candidates
+	 * @return The number of remaining candidates, which are moved to the front
+	 */
+	int prune(long[] reachable, int[] candidates, int count) {
+
+		Arrays.fill(corral, 0);
+		int best = 0;
+		int bestPushes = Integer.MAX_VALUE;
+		int end = 0;
+		for (int cell = 0; cell < corral.length; cell++) {
+			if (corral[cell] == 0 && level.isWalkable(cell) && !Bitboard.get(reachable, cell)) {
+				int id = cell + 1;
+				int start = end;
+				end = fill(cell, id, reachable, start);
+				int pushes = countPushes(id, start, end, reachable);
+				if (pushes > 0 && pushes < bestPushes) {
+					best = id;
+					bestPushes = pushes;
+				}
+			}
+		}
+		if (best == 0) {
+			return count;
+		}
+
+		int kept = 0;
+		for (int i = 0; i < count; i++) {
+			int cell = candidates[i] >> 2;
+			if (corral[cell + 2 * PushExpander.DIRECTIONS[candidates[i] & 3].getOffset()] == best) {
+				candidates[kept++] = candidates[i];
+			}
+		}
+		return kept;
+	}
+
+	/**
+	 * Flood fills the corral containing the given cell.
+	 *
+	 * @param start     The first cell of the corral
+	 * @param id        The id of the corral
+	 * @param reachable
+	 * @param from      The index in {@link #cells} the cells of the corral are stored from
+	 * @return The index following the last cell of the corral
+	 */
+	private int fill(int start, int id, long[] reachable, int from) {
+
+		corral[start] = id;
+		cells[from] = start;
+		int head = from;
+		int tail = from + 1;
+		while (head < tail) {
+			int cell = cells[head++];
+			for (Direction direction : PushExpander.DIRECTIONS) {
+				int next = cell + direction.getOffset();
+				if (corral[next] == 0 && level.isWalkable(next) && !Bitboard.get(reachable, next)) {
+					corral[next] = id;
+					cells[tail++] = next;
+				}
+			}
+		}
+		return tail;
+	}
+
+	/**
+	 * Returns the number of pushes into the given corral if it is a PI-corral that has to be resolved, or 0
+	 * otherwise.
+	 *
+	 * @param id
+	 * @param from      Index of the first cell of the corral in {@link #cells}
+	 * @param to        Index following the last cell of the corral
+	 * @param reachable
+	 * @return
+	 */
+	private int countPushes(int id, int from, int to, long[] reachable) {
+
+		check++;
+		boolean unresolved = false;
+		int pushes = 0;
+		for (int i = from; i < to; i++) {
+			int cell = cells[i];
+			unresolved |= level.isTarget(cell);
+			for (Direction side : PushExpander.DIRECTIONS) {
+				int box = cell + side.getOffset();
+				if (!level.isBox(box) || checked[box] == check) {
+					continue;
+				}
+				checked[box] = check;
+				unresolved |= !level.isTarget(box);
+
+				for (Direction direction : PushExpander.DIRECTIONS) {
+					int pushCell = box - direction.getOffset();
+					int pushedTo = box + direction.getOffset();
+					if (corral[pushCell] == id || level.isWall(pushCell)) {
+						// The player can never push from here before the corral is opened
+						continue;
+					}
+					if (!Bitboard.get(reachable, pushCell)) {
+						// Blocked by a box or another corral for now, but maybe not later
+						return 0;
+					}
+					if (!level.isEverPassableForHeavy(pushedTo, direction)) {
+						continue;
+					}
+					if (corral[pushedTo] != id) {
+						// A push along or out of the corral
+						return 0;
+					}
+					pushes++;
+				}
+			}
+		}
+		return unresolved ? pushes : 0;
+	}
+}
@@ -0,0 +1,489 @@
+package sb.solver;
+
+import sb.model.bitboard.BitboardLevel;
+import sb.model.misc.Direction;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * A breadth-first search over pushes that keeps its layers on disk instead of in memory. Every layer is a
+ * {@link StateFile} of the states first reached with that number of pushes.
+ * <p>
+ * The successors of a layer are collected in runs of limited size, which are sorted and written to disk. The runs
+ * are then merged into the next layer while the file of all states visited so far is streamed alongside, so
+ * duplicates are removed by comparing sorted streams rather than by a hash set in memory. Pushes cannot always be
+ * undone, so every earlier layer has to be taken into account, not just the latest two. The same merge writes the
+ * visited states including the new layer as the next visited file, so every merge reads the runs and a single
+ * visited file, however many layers there are.
+ * <p>
+ * A layer file only appears when it is complete, so a search that has been interrupted resumes with the last
+ * complete layer when it is started again on the same directory. The files are deleted when the search is over.
+ * The moves of the solution are found by searching the layers backwards for a parent of each state.
+ */
+public class ExternalBfsSolver implements Solver {
+
+	/**
+	 * Number of states a run holds if none is given
+	 */
+	public static final int DEFAULT_RUN_SIZE = 1 << 20;
+
+	/**
+	 * The directory the layers are stored in
+	 */
+	private final Path directory;
+
+	/**
+	 * Number of states collected in memory before they are written as a run
+	 */
+	private final int runSize;
+
+	/**
+	 * Number of nodes expanded by the latest search, not counting the layers of an earlier search that was resumed
+	 */
+	private long expandedNodes;
+
+	/**
+	 * Number of pushes of the latest layer the latest search started with
+	 */
+	private int resumedLayer;
+
+	private PushExpander expander;
+
+	private int stateLength;
+
+	public ExternalBfsSolver(Path directory) {
+
+		this(directory, DEFAULT_RUN_SIZE);
+	}
+
+	/**
+	 * @param directory The directory the layers are stored in
+	 * @param runSize   Number of states collected in memory before they are written to disk
+	 */
+	public ExternalBfsSolver(Path directory, int runSize) {
+
+		this.directory = directory;
+		this.runSize = runSize;
+	}
+
+	@Override public Solution solve(BitboardLevel level, SearchMonitor monitor) {
+
+		expandedNodes = 0;
+		monitor.start(level);
+		expander = new PushExpander(level);
+		monitor.trackExpander(expander);
+		stateLength = level.getStateLength();
+		try {
+			SearchNode root = expander.createRoot();
+			if (root.isCompleted()) {
+				return expander.toSolution(root);
+			}
+
+			Files.createDirectories(directory);
+			int depth = resume(root.getState());
+			resumedLayer = depth;
+			while (true) {
+				long[][] found = expandLayer(depth, monitor);
+				if (found != null) {
+					return reconstruct(depth, found[0], found[1]);
+				}
+				if (monitor.isStopped()) {
+					// The complete layers are kept, so the search can be resumed
+					return null;
+				}
+				if (isEmpty(depth + 1)) {
+					deleteSearch();
+					return null;
+				}
+				depth++;
+			}
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		} finally {
+			expander = null;
+		}
+	}
+
+	/**
+	 * Finds the last complete layer of an interrupted search, or writes the first layer if there is none. Files of
+	 * incomplete layers and visited files of other layers are deleted, and so are all files of a search without a
+	 * first layer.
+	 *
+	 * @param rootState
+	 * @return Number of pushes of the layer to expand next
+	 * @throws IOException
+	 */
+	private int resume(long[] rootState) throws IOException {
+
+		deleteFiles("*.tmp");
+		if (!Files.exists(layerPath(0))) {
+			// Layers may be left over from a search whose files were being deleted
+			deleteSearch();
+			writeStates(visitedPath(0), rootState);
+			writeStates(layerPath(0), rootState);
+			return 0;
+		}
+
+		try (StateFile.Reader reader = new StateFile.Reader(layerPath(0), stateLength)) {
+			if (!reader.next() || !Arrays.equals(reader.getState(), rootState)) {
+				throw new IOException("The directory " + directory + " contains the search of another level");
+			}
+		}
+		int depth = 0;
+		while (Files.exists(layerPath(depth + 1))) {
+			depth++;
+		}
+
+		Path visited = visitedPath(depth);
+		try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "visited-*")) {
+			for (Path file : files) {
+				if (!file.equals(visited)) {
+					Files.delete(file);
+				}
+			}
+		}
+		if (!Files.exists(visited)) {
+			// Written by a search that kept no visited file, so all its layers are merged once
+			List<Path> layers = new ArrayList<>();
+			for (int i = 0; i <= depth; i++) {
+				layers.add(layerPath(i));
+			}
+			Path tmp = directory.resolve(String.format("visited-%05d.tmp", depth));
+			try (StateFile.Writer writer = new StateFile.Writer(tmp, stateLength)) {
+				merge(layers, Collections.emptyList(), null, writer);
+			}
+			Files.move(tmp, visited, StandardCopyOption.ATOMIC_MOVE);
+		}
+		return depth;
+	}
+
+	/**
+	 * Expands all states of the given layer and writes the states reached for the first time as the next layer.
+	 * If a completed state is reached, the search is over and all layers are deleted. If the monitor stops the search,
+	 * the next layer is not written.
+	 *
+	 * @param depth
+	 * @param monitor
+	 * @return The parent and the completed state, or null if no completed state was reached
+	 * @throws IOException
+	 */
+	private long[][] expandLayer(int depth, SearchMonitor monitor) throws IOException {
+
+		List<Path> runs = new ArrayList<>();
+		List<long[]> buffer = new ArrayList<>();
+		try (StateFile.Reader reader = new StateFile.Reader(layerPath(depth), stateLength)) {
+			while (reader.next()) {
+				if (!monitor.proceed(1)) {
+					deleteFiles("*.tmp");
+					return null;
+				}
+				long[] state = reader.getState().clone();
+				expandedNodes++;
+				for (SearchNode successor : expander.expand(toNode(state))) {
+					if (successor.isCompleted()) {
+						deleteFiles("*.tmp");
+						return new long[][]{state, successor.getState()};
+					}
+					buffer.add(successor.getState());
+					if (buffer.size() >= runSize) {
+						runs.add(writeRun(runs.size(), buffer));
+					}
+				}
+			}
+		}
+		if (!buffer.isEmpty()) {
+			runs.add(writeRun(runs.size(), buffer));
+		}
+
+		merge(runs, depth);
+		for (Path run : runs) {
+			Files.delete(run);
+		}
+		return null;
+	}
+
+	/**
+	 * Sorts the buffered states, removes duplicates and writes them as a run.
+	 *
+	 * @param index
+	 * @param buffer The states, cleared afterwards
+	 * @return
+	 * @throws IOException
+	 */
+	private Path writeRun(int index, List<long[]> buffer) throws IOException {
+
+		buffer.sort(StateFile::compare);
+		Path path = directory.resolve(String.format("run-%05d.tmp", index));
+		try (StateFile.Writer writer = new StateFile.Writer(path, stateLength)) {
+			long[] previous = null;
+			for (long[] state : buffer) {
+				if (previous == null || StateFile.compare(previous, state) != 0) {
+					writer.write(state);
+				}
+				previous = state;
+			}
+		}
+		buffer.clear();
+		return path;
+	}
+
+	/**
+	 * Merges the runs into the layer following the given one, leaving out all states visited up to the given one, and
+	 * writes the visited states of the next layer. Both files are written under temporary names and renamed when they
+	 * are complete, the visited file first, so the visited file of the latest complete layer always exists.
+	 *
+	 * @param runs
+	 * @param depth
+	 * @throws IOException
+	 */
+	private void merge(List<Path> runs, int depth) throws IOException {
+
+		Path layerTmp = directory.resolve(String.format("layer-%05d.tmp", depth + 1));
+		Path visitedTmp = directory.resolve(String.format("visited-%05d.tmp", depth + 1));
+		try (StateFile.Writer layer = new StateFile.Writer(layerTmp, stateLength);
+				StateFile.Writer visited = new StateFile.Writer(visitedTmp, stateLength)) {
+			merge(runs, Collections.singletonList(visitedPath(depth)), layer, visited);
+		}
+		Files.move(visitedTmp, visitedPath(depth + 1), StandardCopyOption.ATOMIC_MOVE);
+		Files.move(layerTmp, layerPath(depth + 1), StandardCopyOption.ATOMIC_MOVE);
+		Files.delete(visitedPath(depth));
+	}
+
+	/**
+	 * Merges sorted state files.
+	 *
+	 * @param runs    Files of states that are new unless a visited file contains them
+	 * @param visited Files of states that have been visited
+	 * @param layer   Writer of the new states, or null
+	 * @param union   Writer of all states
+	 * @throws IOException
+	 */
+	private void merge(List<Path> runs, List<Path> visited, StateFile.Writer layer, StateFile.Writer union)
+			throws IOException {
+
+		PriorityQueue<Cursor> cursors = new PriorityQueue<>();
+		try {
+			for (Path run : runs) {
+				open(cursors, run, false);
+			}
+			for (Path file : visited) {
+				open(cursors, file, true);
+			}
+
+			while (!cursors.isEmpty()) {
+				// Take all cursors positioned on the smallest state, which is new if no visited file contains it
+				List<Cursor> equal = new ArrayList<>();
+				equal.add(cursors.poll());
+				long[] state = equal.get(0).reader.getState();
+				while (!cursors.isEmpty() && StateFile.compare(cursors.peek().reader.getState(), state) == 0) {
+					equal.add(cursors.poll());
+				}
+				boolean seen = false;
+				for (Cursor cursor : equal) {
+					seen |= cursor.visited;
+				}
+				if (!seen && layer != null) {
+					layer.write(state);
+				}
+				union.write(state);
+				for (Cursor cursor : equal) {
+					if (cursor.reader.next()) {
+						cursors.add(cursor);
+					} else {
+						cursor.reader.close();
+					}
+				}
+			}
+		} finally {
+			for (Cursor cursor : cursors) {
+				cursor.reader.close();
+			}
+		}
+	}
+
+	private void open(PriorityQueue<Cursor> cursors, Path path, boolean visited) throws IOException {
+
+		StateFile.Reader reader = new StateFile.Reader(path, stateLength);
+		if (reader.next()) {
+			cursors.add(new Cursor(reader, visited));
+		} else {
+			reader.close();
+		}
+	}
+
+	/**
+	 * Builds the solution ending with the given push. The parents of the earlier states are found by expanding the
+	 * states of the earlier layers until one of them leads to the state found last.
+	 *
+	 * @param depth  Number of pushes of the parent
+	 * @param parent
+	 * @param goal
+	 * @return
+	 * @throws IOException
+	 */
+	private Solution reconstruct(int depth, long[] parent, long[] goal) throws IOException {
+
+		long[][] path = new long[depth + 2][];
+		path[depth + 1] = goal;
+		path[depth] = parent;
+		for (int i = depth - 1; i >= 0; i--) {
+			path[i] = findParent(i, path[i + 1]);
+		}
+
+		// Replay the path to get the pushes between the states
+		SearchNode node = expander.createRoot();
+		for (int i = 1; i < path.length; i++) {
+			for (SearchNode successor : expander.expand(node)) {
+				if (Arrays.equals(successor.getState(), path[i])) {
+					node = successor;
+					break;
+				}
+			}
+		}
+		deleteSearch();
+		return expander.toSolution(node);
+	}
+
+	/**
+	 * Returns a state of the given layer that has the given state as successor.
+	 *
+	 * @param depth
+	 * @param child
+	 * @return
+	 * @throws IOException
+	 */
+	private long[] findParent(int depth, long[] child) throws IOException {
+
+		try (StateFile.Reader reader = new StateFile.Reader(layerPath(depth), stateLength)) {
+			while (reader.next()) {
+				for (SearchNode successor : expander.expand(toNode(reader.getState()))) {
+					if (Arrays.equals(successor.getState(), child)) {
+						return reader.getState().clone();
+					}
+				}
+			}
+		}
+		throw new IOException("The layer " + depth + " does not contain a parent of a state of the next layer");
+	}
+
+	private boolean isEmpty(int depth) throws IOException {
+
+		try (StateFile.Reader reader = new StateFile.Reader(layerPath(depth), stateLength)) {
+			return !reader.next();
+		}
+	}
+
+	/**
+	 * Writes a file of a single state under a temporary name and renames it when it is complete.
+	 *
+	 * @param path
+	 * @param state
+	 * @throws IOException
+	 */
+	private void writeStates(Path path, long[] state) throws IOException {
+
+		Path tmp = path.resolveSibling(path.getFileName() + ".tmp");
+		try (StateFile.Writer writer = new StateFile.Writer(tmp, stateLength)) {
+			writer.write(state);
+		}
+		Files.move(tmp, path, StandardCopyOption.ATOMIC_MOVE);
+	}
+
+	private void deleteFiles(String glob) throws IOException {
+
+		try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, glob)) {
+			for (Path file : files) {
+				Files.delete(file);
+			}
+		}
+	}
+
+	/**
+	 * Deletes the layers and visited files of a search that is over. The first layer goes first, so if the deletion
+	 * is interrupted, the next search starts afresh rather than resuming what is left.
+	 *
+	 * @throws IOException
+	 */
+	private void deleteSearch() throws IOException {
+
+		Files.deleteIfExists(layerPath(0));
+		deleteFiles("layer-*");
+		deleteFiles("visited-*");
+	}
+
+	private Path layerPath(int depth) {
+
+		return directory.resolve(String.format("layer-%05d.states", depth));
+	}
+
+	/**
+	 * Returns the path of the file of all states reached with at most the given number of pushes
+	 *
+	 * @param depth
+	 * @return
+	 */
+	private Path visitedPath(int depth) {
+
+		return directory.resolve(String.format("visited-%05d.states", depth));
+	}
+
+	private static SearchNode toNode(long[] state) {
+
+		return new SearchNode(state, null, -1, Direction.NONE, -1, false);
+	}
+
+	@Override public boolean provesUnsolvable() {
+
+		return true;
+	}
+
+	public long getExpandedNodes() {
+
+		return expandedNodes;
+	}
+
+	/**
+	 * Returns the number of pushes of the layer the latest search started with, which is greater than zero if an
+	 * interrupted search has been resumed
+	 *
+	 * @return
+	 */
+	public int getResumedLayer() {
+
+		return resumedLayer;
+	}
+
+	/**
+	 * A reader taking part in a merge, ordered by its current state
+	 */
+	private static class Cursor implements Comparable<Cursor> {
+
+		private final StateFile.Reader reader;
+
+		/**
+		 * Does the reader read visited states rather than a run?
+		 */
+		private final boolean visited;
+
+		Cursor(StateFile.Reader reader, boolean visited) {
+
+			this.reader = reader;
+			this.visited = visited;
+		}
+
+		@Override public int compareTo(Cursor other) {
+
+			return StateFile.compare(reader.getState(), other.reader.getState());
+		}
+	}
+}
@@ -0,0 +1,64 @@
+package sb.solver;
+
+import jdk.jfr.FlightRecorder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Emits the flight recorder events of the searches. Only used if the runtime has a flight recorder, see
+ * {@link SolverMetrics}, so no other class refers to the event classes directly.
+ */
+class FlightRecorderEvents {
+
+	private FlightRecorderEvents() {
+
+	}
+
+	/**
+	 * Lets the flight recorder sample the running searches of the given metrics periodically.
+	 *
+	 * @param metrics
+	 */
+	static void register(SolverMetrics metrics) {
+
+		FlightRecorder.addPeriodicEvent(SearchSampleEvent.class, () -> {
+			for (SearchMonitor monitor : metrics.getActiveMonitors()) {
+				SearchStatistics statistics = monitor.getStatistics();
+				if (statistics != null) {
+					SearchSampleEvent event = new SearchSampleEvent();
+					event.setStatistics(statistics);
+					event.elapsedMillis = TimeUnit.NANOSECONDS.toMillis(statistics.getElapsedNanos());
+					event.commit();
+				}
+			}
+		});
+	}
+
+	/**
+	 * Starts the event of a search.
+	 *
+	 * @return The event, to be passed to {@link #commitSearch(Object, Solver, SolveResult)}
+	 */
+	static Object beginSearch() {
+
+		SearchEvent event = new SearchEvent();
+		event.begin();
+		return event;
+	}
+
+	static void commitSearch(Object searchEvent, Solver solver, SolveResult result) {
+
+		SearchEvent event = (SearchEvent) searchEvent;
+		event.end();
+		if (event.shouldCommit()) {
+			event.solver = solver.getClass().getSimpleName();
+			event.status = result.getStatus().name();
+			event.emptyTargets = result.getEmptyTargets();
+			event.pushes = result.getSolution() == null ? -1 : result.getSolution().getPushCount();
+			if (result.getStatistics() != null) {
+				event.setStatistics(result.getStatistics());
+			}
+			event.commit();
+		}
+	}
+}
@@ -0,0 +1,104 @@
+package sb.solver;
+
+import sb.model.bitboard.BitboardLevel;
+
+import java.util.PriorityQueue;
+
+/**
+ * A greedy best-first search over pushes. It always expands the state whose boxes are closest to the targets by the
+ * matching bound (see {@link Assignment}), ignoring the pushes already made. It often finds a solution after far
+ * fewer nodes than an {@link AStarSolver}, but the solution may use many more pushes than needed.
+ */
+public class GreedySolver implements Solver {
+
+	/**
+	 * Number of states the table of visited states is created for
+	 */
+	private static final int INITIAL_CAPACITY = 1 << 16;
+
+	/**
+	 * Number of nodes expanded by the latest search
+	 */
+	private long expandedNodes;
+
+	@Override public Solution solve(BitboardLevel level, SearchMonitor monitor) {
+
+		expandedNodes = 0;
+		monitor.start(level);
+		PushExpander expander = new PushExpander(level);
+		monitor.trackExpander(expander);
+		PushDistances distances = new PushDistances(level);
+		SearchNode root = expander.createRoot();
+		if (root.isCompleted()) {
+			return expander.toSolution(root);
+		}
+
+		Assignment assignment = Assignment.forLevel(level, distances);
+		if (assignment == null || assignment.getCost() >= PushDistances.INFINITE) {
+			return null;
+		}
+
+		PriorityQueue<Entry> open = new PriorityQueue<>();
+		OffHeapTable visited = new OffHeapTable(INITIAL_CAPACITY);
+		monitor.trackOffHeap(visited::getMemoryUsage);
+		monitor.trackTable(visited);
+		monitor.trackFrontier(open::size);
+		visited.putIfShallower(TranspositionTable.key(root.getState()), OffHeapTable.check(root.getState()), 0);
+		open.add(new Entry(root, assignment));
+		while (!open.isEmpty()) {
+			Entry entry = open.poll();
+			if (!monitor.expand(entry.node)) {
+				return null;
+			}
+			expandedNodes++;
+			for (SearchNode successor : expander.expand(entry.node)) {
+				Assignment successorAssignment = entry.assignment.moveBox(successor.getPushedFrom(), successor.getPushedTo());
+				long[] state = successor.getState();
+				if (successorAssignment.getCost() >= PushDistances.INFINITE) {
+					expander.countPrune(PruneRule.MATCHING);
+				} else if (visited.putIfShallower(TranspositionTable.key(state), OffHeapTable.check(state), successor.getDepth())) {
+					// The first completed state is taken, there is no point in looking for a shorter one
+					if (successor.isCompleted()) {
+						return expander.toSolution(successor);
+					}
+					open.add(new Entry(successor, successorAssignment));
+				}
+			}
+		}
+		return null;
+	}
+
+	@Override public boolean provesUnsolvable() {
+
+		return true;
+	}
+
+	public long getExpandedNodes() {
+
+		return expandedNodes;
+	}
+
+	/**
+	 * An entry of the open list, ordered by the matching bound and then by depth, shallowest first.
+	 */
+	private static class Entry implements Comparable<Entry> {
+
+		private final SearchNode node;
+
+		private final Assignment assignment;
+
+		Entry(SearchNode node, Assignment assignment) {
+
+			this.node = node;
+			this.assignment = assignment;
+		}
+
+		@Override public int compareTo(Entry other) {
+
+			if (assignment.getCost() != other.assignment.getCost()) {
+				return Integer.compare(assignment.getCost(), other.assignment.getCost());
+			}
+			return Integer.compare(node.getDepth(), other.node.getDepth());
+		}
+	}
+}
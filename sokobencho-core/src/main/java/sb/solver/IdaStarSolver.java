@@ -0,0 +1,175 @@
+package sb.solver;
+
+import sb.model.bitboard.BitboardLevel;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * An iterative deepening A* search over pushes. It runs depth-first searches that are cut off as soon as the pushes
+ * done plus the matching bound (see {@link Assignment}) exceed a threshold, raising the threshold after every failed
+ * iteration. Only the current path is kept in memory, apart from a {@link TranspositionTable} of fixed size, so the
+ * memory needed is bounded regardless of the size of the level.
+ * <p>
+ * The table prunes states that have already been searched in the current iteration with at most as many pushes and
+ * remembers improved lower bounds across iterations. Since it tells states apart by a 64-bit key alone, a search
+ * without a solution does not prove that the level is unsolvable.
+ */
+public class IdaStarSolver implements Solver {
+
+	/**
+	 * Size of the transposition table if none is given
+	 */
+	public static final int DEFAULT_TABLE_MEGABYTES = 64;
+
+	private final int tableMegabytes;
+
+	private PushExpander expander;
+
+	private TranspositionTable table;
+
+	private SearchMonitor monitor;
+
+	/**
+	 * Number of the current iteration, starting at one
+	 */
+	private int iteration;
+
+	/**
+	 * The smallest estimate that exceeded the threshold of the current iteration
+	 */
+	private int nextThreshold;
+
+	/**
+	 * Number of nodes expanded by the latest search
+	 */
+	private long expandedNodes;
+
+	public IdaStarSolver() {
+
+		this(DEFAULT_TABLE_MEGABYTES);
+	}
+
+	/**
+	 * @param tableMegabytes The memory used by the transposition table
+	 */
+	public IdaStarSolver(int tableMegabytes) {
+
+		this.tableMegabytes = tableMegabytes;
+	}
+
+	@Override public Solution solve(BitboardLevel level, SearchMonitor monitor) {
+
+		expandedNodes = 0;
+		monitor.start(level);
+		this.monitor = monitor;
+		expander = new PushExpander(level);
+		table = new TranspositionTable(tableMegabytes);
+		monitor.trackExpander(expander);
+		monitor.trackTable(table);
+		try {
+			SearchNode root = expander.createRoot();
+			PushDistances distances = new PushDistances(level);
+			Assignment assignment = Assignment.forLevel(level, distances);
+			if (assignment == null) {
+				return null;
+			}
+
+			int threshold = assignment.getCost();
+			iteration = 0;
+			while (threshold < PushDistances.INFINITE) {
+				iteration++;
+				nextThreshold = PushDistances.INFINITE;
+				SearchNode solution = search(root, assignment, threshold);
+				if (solution != null) {
+					return expander.toSolution(solution);
+				}
+				if (monitor.isStopped()) {
+					return null;
+				}
+				threshold = nextThreshold;
+			}
+			return null;
+		} finally {
+			expander = null;
+			table = null;
+			this.monitor = null;
+		}
+	}
+
+	/**
+	 * Searches the subtree of the given node for a solution with at most 'threshold' pushes in total.
+	 *
+	 * @param node
+	 * @param assignment The matching of the node
+	 * @param threshold
+	 * @return The completed node, or null if there is none within the threshold
+	 */
+	private SearchNode search(SearchNode node, Assignment assignment, int threshold) {
+
+		int depth = node.getDepth();
+		int bound = assignment.getCost();
+		long key = TranspositionTable.key(node.getState());
+		if (table.find(key)) {
+			if (table.getIteration() == iteration && table.getDepth() <= depth) {
+				// Already searched in this iteration without success, or an ancestor on the current path
+				return null;
+			}
+			bound = Math.max(bound, table.getBound());
+		}
+		if (depth + bound > threshold) {
+			nextThreshold = Math.min(nextThreshold, depth + bound);
+			return null;
+		}
+		if (node.isCompleted()) {
+			return node;
+		}
+		if (!monitor.expand(node)) {
+			return null;
+		}
+		table.store(key, iteration, bound, depth);
+
+		expandedNodes++;
+		List<SearchNode> successors = expander.expand(node);
+		List<Child> children = new ArrayList<>(successors.size());
+		for (SearchNode successor : successors) {
+			Assignment successorAssignment = assignment.moveBox(successor.getPushedFrom(), successor.getPushedTo());
+			if (successorAssignment.getCost() < PushDistances.INFINITE) {
+				children.add(new Child(successor, successorAssignment));
+			} else {
+				expander.countPrune(PruneRule.MATCHING);
+			}
+		}
+
+		// Try the most promising pushes first, so the last iteration finds the solution early
+		children.sort((a, b) -> Integer.compare(a.assignment.getCost(), b.assignment.getCost()));
+		for (Child child : children) {
+			SearchNode solution = search(child.node, child.assignment, threshold);
+			if (solution != null || monitor.isStopped()) {
+				return solution;
+			}
+		}
+
+		// No solution within the threshold, so at least one more push is needed from here
+		table.store(key, iteration, Math.max(bound, threshold - depth + 1), depth);
+		return null;
+	}
+
+	public long getExpandedNodes() {
+
+		return expandedNodes;
+	}
+
+	private static class Child {
+
+		private final SearchNode node;
+
+		private final Assignment assignment;
+
+		Child(SearchNode node, Assignment assignment) {
+
+			this.node = node;
+			this.assignment = assignment;
+		}
+	}
+}
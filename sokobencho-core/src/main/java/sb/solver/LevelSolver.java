@@ -0,0 +1,101 @@
+package sb.solver;
+
+import sb.model.Level;
+import sb.model.bitboard.BitboardLevel;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Solves the current state of a loaded {@link Level} with a {@link Solver} within {@link SearchLimits}. The state is
+ * copied before searching, so the level may be played on meanwhile. A search can be cancelled from another thread
+ * through its {@link SearchMonitor}, and a search that has been stopped still reports how far it got. The statistics of
+ * all searches are published by the {@link SolverMetrics}.
+ * <p>
+ * Solvers keep statistics of their latest search, so a level solver must not run several searches at once. Use one
+ * level solver per thread instead.
+ */
+public class LevelSolver {
+
+	private final Solver solver;
+
+	public LevelSolver(Solver solver) {
+
+		this.solver = solver;
+	}
+
+	/**
+	 * Solves the level within the given limits.
+	 *
+	 * @param level
+	 * @param limits
+	 * @return
+	 */
+	public SolveResult solve(Level level, SearchLimits limits) {
+
+		return solve(level, new SearchMonitor(limits));
+	}
+
+	/**
+	 * Solves the level while the given monitor lets the search go on. Calling {@link SearchMonitor#cancel()} from
+	 * another thread makes this method return soon with the progress made so far.
+	 *
+	 * @param level   A level that has already loaded a level
+	 * @param monitor A monitor that has not watched another search yet
+	 * @return
+	 */
+	public SolveResult solve(Level level, SearchMonitor monitor) {
+
+		BitboardLevel packed = BitboardLevel.snapshot(level);
+		SolverMetrics metrics = SolverMetrics.getInstance();
+		Object event = metrics.begin(monitor);
+		SolveResult result = null;
+		try {
+			long start = System.nanoTime();
+			Solution solution = solver.solve(packed, monitor);
+			long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+			monitor.finish();
+			result = toResult(packed, solution, monitor, elapsed, solver.provesUnsolvable());
+			return result;
+		} finally {
+			metrics.end(monitor, event, solver, result);
+		}
+	}
+
+	/**
+	 * Collects the outcome of a search.
+	 *
+	 * @param packed   The state that has been searched
+	 * @param solution
+	 * @param monitor
+	 * @param elapsed
+	 * @param proof    Does a search ending without a solution prove the level unsolvable?
+	 * @return
+	 */
+	private static SolveResult toResult(BitboardLevel packed, Solution solution, SearchMonitor monitor, long elapsed,
+			boolean proof) {
+
+		SearchStatistics statistics = monitor.getStatistics();
+		if (solution != null) {
+			return new SolveResult(SolveResult.Status.SOLVED, solution, solution, 0, monitor.getExpandedNodes(), elapsed, statistics);
+		}
+
+		SolveResult.Status status = monitor.getStopReason();
+		if (status == null) {
+			status = proof ? SolveResult.Status.UNSOLVABLE : SolveResult.Status.EXHAUSTED;
+		}
+		SearchNode best = monitor.getBestNode();
+		if (best == null) {
+			// Nothing has been expanded, or the solver does not keep the paths to its states
+			long[] state = new long[packed.getStateLength()];
+			packed.exportState(state);
+			return new SolveResult(status, null, null, packed.countEmptyTargets(state), monitor.getExpandedNodes(), elapsed, statistics);
+		}
+		Solution prefix = new PushExpander(packed).toSolution(best);
+		return new SolveResult(status, null, prefix, monitor.getBestEmptyTargets(), monitor.getExpandedNodes(), elapsed, statistics);
+	}
+
+	public Solver getSolver() {
+
+		return solver;
+	}
+}
@@ -0,0 +1,401 @@
+package sb.solver;
+
+import sb.model.bitboard.Bitboard;
+import sb.model.bitboard.BitboardLevel;
+import sb.model.misc.Direction;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Combines pushes that follow each other by necessity into macro moves, so a search does not have to store the states
+ * in between.
+ * <p>
+ * A box pushed into a one-wide tunnel, with walls on both sides of the box and of the player, is pushed on until it
+ * leaves the tunnel or reaches a target. A goal room is an area holding all targets that can only be entered through
+ * a single entrance cell. When the level is loaded, an order of filling its targets is found by pulling the boxes out
+ * of the filled room one after another. A box pushed onto the entrance the way this order expects is then pushed all
+ * the way to its target.
+ * <p>
+ * Macro moves may skip states that would lead to shorter solutions, so a search using them no longer guarantees the
+ * minimal number of pushes. They are only detected on reversible levels (see {@link BitboardLevel#isReversible()}).
+ */
+class MacroMoves {
+
+	/**
+	 * Cells with walls on both sides across each axis: index 0 for horizontal, 1 for vertical movements
+	 */
+	private final long[][] tunnels;
+
+	/**
+	 * The cells of the goal room, or null if there is none
+	 */
+	private long[] room;
+
+	/**
+	 * The cell the goal room is entered through
+	 */
+	private int entrance = -1;
+
+	/**
+	 * The targets of the goal room in the order they are filled
+	 */
+	private int[] packingOrder;
+
+	/**
+	 * For each target of the packing order, the pushes carrying a box from the entrance onto it (see
+	 * {@link SearchNode#getMove()}), starting with the push off the entrance
+	 */
+	private int[][] packingPushes;
+
+	/**
+	 * The pushes of the macro move made latest, of which the first {@link #pushCount} are valid
+	 */
+	private final int[] pushes;
+
+	private int pushCount;
+
+	MacroMoves(BitboardLevel level) {
+
+		int cellCount = level.getCellCount();
+		tunnels = new long[][]{Bitboard.create(cellCount), Bitboard.create(cellCount)};
+		for (int cell = 0; cell < cellCount; cell++) {
+			// The padding around the level consists of walls, so the neighbours of other cells exist
+			if (level.isWall(cell) || level.isTarget(cell)) {
+				continue;
+			}
+			if (level.isWall(cell + Direction.N.getOffset()) && level.isWall(cell + Direction.S.getOffset())) {
+				Bitboard.set(tunnels[0], cell);
+			}
+			if (level.isWall(cell + Direction.W.getOffset()) && level.isWall(cell + Direction.O.getOffset())) {
+				Bitboard.set(tunnels[1], cell);
+			}
+		}
+		findGoalRoom(level);
+
+		// A tunnel holds every cell at most once, the goal room is packed with the pushes found for it
+		int longestPacking = 0;
+		if (room != null) {
+			for (int[] packing : packingPushes) {
+				longestPacking = Math.max(longestPacking, packing.length);
+			}
+		}
+		pushes = new int[cellCount + longestPacking];
+	}
+
+	/**
+	 * Forgets the pushes of the latest macro move
+	 */
+	void clearPushes() {
+
+		pushCount = 0;
+	}
+
+	/**
+	 * Returns the pushes made since {@link #clearPushes()} (see {@link SearchNode#getMove()})
+	 *
+	 * @return A copy of the pushes, or null if there are none
+	 */
+	int[] getPushes() {
+
+		return pushCount == 0 ? null : Arrays.copyOf(pushes, pushCount);
+	}
+
+	/**
+	 * Pushes the box the player has just pushed on as long as it is in a tunnel. The level must hold the state right
+	 * after the push.
+	 *
+	 * @param level
+	 * @param direction The direction of the push
+	 * @return The cell the box ends up on
+	 */
+	int pushThroughTunnel(BitboardLevel level, Direction direction) {
+
+		long[] tunnel = tunnels[direction == Direction.O || direction == Direction.W ? 0 : 1];
+		int player = level.getPlayerCell();
+		int box = player + direction.getOffset();
+		while (Bitboard.get(tunnel, player) && Bitboard.get(tunnel, box) && !level.isDeadlocked()) {
+			int levelPushes = level.getPushCount();
+			level.movePlayer(direction);
+			if (level.getPushCount() == levelPushes) {
+				break;
+			}
+			pushes[pushCount++] = move(player, direction);
+			player = box;
+			box += direction.getOffset();
+		}
+		return box;
+	}
+
+	/**
+	 * Pushes the box just pushed onto the entrance of the goal room on to its target, if the player stands behind it
+	 * the way the packing order expects and the room is filled up to it. A box that already stood on the entrance is
+	 * left alone, the search only follows the box it has pushed.
+	 *
+	 * @param level
+	 * @param box The cell of the box just pushed
+	 * @return The cell the box ends up on, or -1 if nothing has been pushed
+	 */
+	int packGoalRoom(BitboardLevel level, int box) {
+
+		if (room == null || box != entrance || !level.isBox(entrance)) {
+			return -1;
+		}
+		int filled = 0;
+		for (int cell = Bitboard.next(room, 0); cell >= 0; cell = Bitboard.next(room, cell + 1)) {
+			if (level.isBox(cell)) {
+				filled++;
+			}
+		}
+		if (filled >= packingOrder.length || packingPushes[filled][0] >> 3 != level.getPlayerCell()) {
+			return -1;
+		}
+		for (int i = 0; i < filled; i++) {
+			if (!level.isBox(packingOrder[i])) {
+				return -1;
+			}
+		}
+
+		int packedTo = -1;
+		for (int push : packingPushes[filled]) {
+			Direction direction = Direction.values()[push & 7];
+			int levelPushes = level.getPushCount();
+			level.placePlayer(push >> 3);
+			level.movePlayer(direction);
+			if (level.getPushCount() == levelPushes) {
+				break;
+			}
+			pushes[pushCount++] = push;
+			packedTo = (push >> 3) + 2 * direction.getOffset();
+			if (level.isDeadlocked()) {
+				break;
+			}
+		}
+		return packedTo;
+	}
+
+	/**
+	 * Looks for the entrance that separates the smallest area holding all targets from the player, and for an order of
+	 * filling that area. Boxes already inside the area do not matter, the room is only packed by macro moves once its
+	 * boxes stand on the targets filled first.
+	 *
+	 * @param level
+	 */
+	private void findGoalRoom(BitboardLevel level) {
+
+		int cellCount = level.getCellCount();
+		long[] targets = Bitboard.create(cellCount);
+		for (int cell = 0; cell < cellCount; cell++) {
+			if (level.isTarget(cell)) {
+				Bitboard.set(targets, cell);
+			}
+		}
+		int firstTarget = Bitboard.next(targets, 0);
+		if (firstTarget < 0) {
+			return;
+		}
+		long[] blocked = Bitboard.create(cellCount);
+		long[] area = Bitboard.create(cellCount);
+		int[] queue = new int[cellCount];
+		int targetCount = Bitboard.countAnd(targets, targets);
+		int bestSize = Integer.MAX_VALUE;
+		for (int cell = 0; cell < cellCount; cell++) {
+			if (!level.isEverPassableForPlayer(cell) || level.isTarget(cell)) {
+				continue;
+			}
+			Bitboard.set(blocked, cell);
+			int size = fill(level, firstTarget, blocked, area, queue);
+			Bitboard.clear(blocked, cell);
+			if (size < bestSize && Bitboard.countAnd(area, targets) == targetCount && !Bitboard.get(area, level.getPlayerCell())) {
+				bestSize = size;
+				entrance = cell;
+				room = area.clone();
+			}
+		}
+		if (room != null && !findPackingOrder(level, targets)) {
+			room = null;
+		}
+	}
+
+	/**
+	 * Flood fills the floor reachable from the given cell without entering blocked cells.
+	 *
+	 * @return The number of cells filled
+	 */
+	private static int fill(BitboardLevel level, int start, long[] blocked, long[] area, int[] queue) {
+
+		Arrays.fill(area, 0);
+		Bitboard.set(area, start);
+		queue[0] = start;
+		int head = 0;
+		int tail = 1;
+		while (head < tail) {
+			int cell = queue[head++];
+			for (Direction direction : PushExpander.DIRECTIONS) {
+				int next = cell + direction.getOffset();
+				if (level.isEverPassableForPlayer(next) && !Bitboard.get(blocked, next) && !Bitboard.get(area, next)) {
+					Bitboard.set(area, next);
+					queue[tail++] = next;
+				}
+			}
+		}
+		return tail;
+	}
+
+	/**
+	 * Empties the filled goal room by pulling out one box after another through the entrance. The reverse of the
+	 * order the boxes could be pulled out in is an order of filling the room.
+	 *
+	 * @param level
+	 * @param targets
+	 * @return False, if the room cannot be emptied
+	 */
+	private boolean findPackingOrder(BitboardLevel level, long[] targets) {
+
+		RoomSearch search = new RoomSearch(level);
+		List<Integer> remaining = new ArrayList<>();
+		for (int cell = Bitboard.next(targets, 0); cell >= 0; cell = Bitboard.next(targets, cell + 1)) {
+			remaining.add(cell);
+		}
+		packingOrder = new int[remaining.size()];
+		packingPushes = new int[remaining.size()][];
+		for (int filled = remaining.size() - 1; filled >= 0; filled--) {
+			int[] packing = null;
+			for (int i = 0; i < remaining.size() && packing == null; i++) {
+				packing = search.pullOut(remaining.get(i), remaining);
+				if (packing != null) {
+					packingOrder[filled] = remaining.remove(i);
+					packingPushes[filled] = packing;
+				}
+			}
+			if (packing == null) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static int move(int pushCell, Direction direction) {
+
+		return (pushCell << 3) | direction.ordinal();
+	}
+
+	/**
+	 * A breadth-first search over the positions of a single box and the player inside the goal room
+	 */
+	private class RoomSearch {
+
+		private final BitboardLevel level;
+
+		/**
+		 * The cells the search takes place on: the room, the entrance and the floor next to the entrance outside
+		 */
+		private final int[] cells;
+
+		/**
+		 * The index of each cell in {@link #cells}, -1 for all other cells
+		 */
+		private final int[] index;
+
+		/**
+		 * For each searched state, the state it was reached from and the move, negative for pulls
+		 */
+		private final int[] parent;
+
+		private final int[] via;
+
+		private final int[] queue;
+
+		RoomSearch(BitboardLevel level) {
+
+			this.level = level;
+			List<Integer> list = new ArrayList<>();
+			for (int cell = Bitboard.next(room, 0); cell >= 0; cell = Bitboard.next(room, cell + 1)) {
+				list.add(cell);
+			}
+			list.add(entrance);
+			for (Direction direction : PushExpander.DIRECTIONS) {
+				int outside = entrance + direction.getOffset();
+				if (level.isEverPassableForPlayer(outside) && !Bitboard.get(room, outside)) {
+					list.add(outside);
+				}
+			}
+			cells = list.stream().mapToInt(Integer::intValue).toArray();
+			index = new int[level.getCellCount()];
+			Arrays.fill(index, -1);
+			for (int i = 0; i < cells.length; i++) {
+				index[cells[i]] = i;
+			}
+			parent = new int[cells.length * cells.length];
+			via = new int[cells.length * cells.length];
+			queue = new int[cells.length * cells.length];
+		}
+
+		/**
+		 * Searches for pulls carrying the box on the given target out onto the entrance while the other remaining
+		 * targets stay filled. The player starts on the entrance and may only leave the room with the last pull.
+		 *
+		 * @param target
+		 * @param remaining The targets still filled, including the given one
+		 * @return The pushes reversing the pulls, in the order they are made, or null if there are none
+		 */
+		int[] pullOut(int target, List<Integer> remaining) {
+
+			int n = cells.length;
+			Arrays.fill(parent, -1);
+			int start = index[target] * n + index[entrance];
+			parent[start] = start;
+			queue[0] = start;
+			int head = 0;
+			int tail = 1;
+			while (head < tail) {
+				int state = queue[head++];
+				int box = cells[state / n];
+				int player = cells[state % n];
+				for (Direction direction : PushExpander.DIRECTIONS) {
+					int next = player + direction.getOffset();
+					if (index[next] < 0 || next == box || (next != target && remaining.contains(next))) {
+						continue;
+					}
+					boolean inside = Bitboard.get(room, next) || next == entrance;
+
+					// Walk without pulling, which only ever happens inside
+					int successor = index[box] * n + index[next];
+					if (inside && parent[successor] < 0) {
+						parent[successor] = state;
+						via[successor] = 0;
+						queue[tail++] = successor;
+					}
+
+					// Pull the box behind the player along, which may only leave the room with the box on the entrance
+					if (box != player - direction.getOffset() || !level.isEverPassableForHeavy(box, direction.getInverse())
+							|| (!inside && player != entrance)) {
+						continue;
+					}
+					successor = index[player] * n + index[next];
+					if (parent[successor] < 0) {
+						parent[successor] = state;
+						via[successor] = -1 - move(next, direction.getInverse());
+						if (!inside) {
+							return toPushes(successor);
+						}
+						queue[tail++] = successor;
+					}
+				}
+			}
+			return null;
+		}
+
+		private int[] toPushes(int state) {
+
+			List<Integer> pushes = new ArrayList<>();
+			for (; parent[state] != state; state = parent[state]) {
+				if (via[state] < 0) {
+					pushes.add(-1 - via[state]);
+				}
+			}
+			return pushes.stream().mapToInt(Integer::intValue).toArray();
+		}
+	}
+}
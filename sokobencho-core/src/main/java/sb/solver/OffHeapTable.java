@@ -0,0 +1,319 @@
+package sb.solver;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * An open addressing hash table stored outside the Java heap. It maps a state to the number of pushes the state was
+ * reached with, in 20 bytes per entry and without any objects per entry, so it can hold far more states than a
+ * {@link java.util.HashMap} on the same memory.
+ * <p>
+ * A state is identified by two independent 64-bit hashes, its key (see {@link TranspositionTable#key(long[])}) and
+ * its check (see {@link #check(long[])}). Different states are only taken for each other if both hashes are equal,
+ * which even among a billion states happens with a probability below 10^-20. So unlike a
+ * {@link TranspositionTable}, the table can serve as the exact set of visited states of a search that has to tell
+ * whether a level is solvable at all.
+ * <p>
+ * The entries are stored in direct buffers of at most 1.25 GiB each and probed linearly. The table doubles its capacity
+ * when it is filled up to {@link #MAX_LOAD}. Its memory is limited by -XX:MaxDirectMemorySize rather than by the heap
+ * size and is released when the table is garbage collected.
+ */
+public class OffHeapTable implements TableStatistics {
+
+	/**
+	 * Bytes per entry: the key, the check and the depth
+	 */
+	private static final int ENTRY_SIZE = 20;
+
+	private static final int CHECK_OFFSET = 8;
+
+	private static final int DEPTH_OFFSET = 16;
+
+	/**
+	 * Entries per buffer, so a buffer takes 1.25 GiB
+	 */
+	private static final int SEGMENT_SHIFT = 26;
+
+	private static final long SEGMENT_MASK = (1L << SEGMENT_SHIFT) - 1;
+
+	/**
+	 * Entries per slot the table is filled up to before it grows
+	 */
+	private static final float MAX_LOAD = 0.75f;
+
+	/**
+	 * Marks free slots. A state with this key is stored under {@link #ZERO_KEY} instead.
+	 */
+	private static final long EMPTY = 0;
+
+	private static final long ZERO_KEY = 0x8000000000000000L;
+
+	private ByteBuffer[] segments;
+
+	/**
+	 * Number of slots, a power of two
+	 */
+	private long capacity;
+
+	/**
+	 * Shifts a scrambled key so only the bits selecting its home slot are left
+	 */
+	private int shift;
+
+	private long size;
+
+	/**
+	 * Number of lookups and the slots they probed in total, for the statistics
+	 */
+	private long lookups;
+
+	private long probes;
+
+	private long hits;
+
+	private int maxProbeLength;
+
+	/**
+	 * Slot found by the latest call of {@link #find(long, long)}
+	 */
+	private long found;
+
+	/**
+	 * @param initialCapacity Number of entries the table can hold before it grows the first time
+	 */
+	public OffHeapTable(long initialCapacity) {
+
+		long slots = Long.highestOneBit(Math.max(16, (long) (initialCapacity / MAX_LOAD)) - 1) << 1;
+		allocate(slots);
+	}
+
+	/**
+	 * Returns a 64-bit hash of a state that is independent of its key (see {@link TranspositionTable#key(long[])})
+	 *
+	 * @param state
+	 * @return
+	 */
+	public static long check(long[] state) {
+
+		long h = 0x6a09e667f3bcc909L;
+		for (long word : state) {
+			h = fmix(h ^ word) * 0xc2b2ae3d27d4eb4fL;
+		}
+		return fmix(h);
+	}
+
+	/**
+	 * Returns the number of pushes the state with the given key and check was reached with, or -1 if it is not
+	 * stored.
+	 *
+	 * @param key
+	 * @param check
+	 * @return
+	 */
+	public int getDepth(long key, long check) {
+
+		return find(key, check) ? getInt(found, DEPTH_OFFSET) : -1;
+	}
+
+	/**
+	 * Stores the state unless it is already stored with at most the given number of pushes.
+	 *
+	 * @param key
+	 * @param check
+	 * @param depth Number of pushes the state was reached with
+	 * @return True, if the entry was stored
+	 */
+	public boolean putIfShallower(long key, long check, int depth) {
+
+		if (find(key, check)) {
+			if (getInt(found, DEPTH_OFFSET) <= depth) {
+				return false;
+			}
+		} else {
+			if (size + 1 > capacity * MAX_LOAD) {
+				grow();
+				find(key, check);
+			}
+			setLong(found, 0, normalize(key));
+			setLong(found, CHECK_OFFSET, check);
+			size++;
+		}
+		setInt(found, DEPTH_OFFSET, depth);
+		return true;
+	}
+
+	@Override public long size() {
+
+		return size;
+	}
+
+	@Override public long getLookups() {
+
+		return lookups;
+	}
+
+	@Override public long getHits() {
+
+		return hits;
+	}
+
+	/**
+	 * Returns the number of slots of other states probed by all lookups
+	 *
+	 * @return
+	 */
+	@Override public long getCollisions() {
+
+		return probes - lookups;
+	}
+
+	public long getCapacity() {
+
+		return capacity;
+	}
+
+	/**
+	 * Returns the number of bytes allocated outside the heap
+	 *
+	 * @return
+	 */
+	public long getMemoryUsage() {
+
+		return capacity * ENTRY_SIZE;
+	}
+
+	public double getLoadFactor() {
+
+		return (double) size / capacity;
+	}
+
+	/**
+	 * Returns the average number of slots probed per lookup
+	 *
+	 * @return
+	 */
+	public double getAverageProbeLength() {
+
+		return lookups == 0 ? 0 : (double) probes / lookups;
+	}
+
+	public int getMaxProbeLength() {
+
+		return maxProbeLength;
+	}
+
+	/**
+	 * Looks for the slot of the given state. If the state is not stored, the free slot it would be stored in is found.
+	 *
+	 * @param key
+	 * @param check
+	 * @return True, if the state is stored
+	 */
+	private boolean find(long key, long check) {
+
+		key = normalize(key);
+		long mask = capacity - 1;
+		int length = 1;
+		for (long slot = home(key); ; slot = (slot + 1) & mask, length++) {
+			long stored = getLong(slot, 0);
+			boolean hit = stored == key && getLong(slot, CHECK_OFFSET) == check;
+			if (hit || stored == EMPTY) {
+				lookups++;
+				probes += length;
+				maxProbeLength = Math.max(maxProbeLength, length);
+				found = slot;
+				if (hit) {
+					hits++;
+				}
+				return hit;
+			}
+		}
+	}
+
+	/**
+	 * Doubles the capacity and moves all entries into the new buffers.
+	 */
+	private void grow() {
+
+		ByteBuffer[] oldSegments = segments;
+		allocate(capacity << 1);
+		long mask = capacity - 1;
+		for (int i = 0; i < oldSegments.length; i++) {
+			ByteBuffer old = oldSegments[i];
+			for (int offset = 0; offset < old.capacity(); offset += ENTRY_SIZE) {
+				long key = old.getLong(offset);
+				if (key != EMPTY) {
+					long slot = home(key);
+					while (getLong(slot, 0) != EMPTY) {
+						slot = (slot + 1) & mask;
+					}
+					setLong(slot, 0, key);
+					setLong(slot, CHECK_OFFSET, old.getLong(offset + CHECK_OFFSET));
+					setInt(slot, DEPTH_OFFSET, old.getInt(offset + DEPTH_OFFSET));
+				}
+			}
+		}
+	}
+
+	private void allocate(long slots) {
+
+		capacity = slots;
+		shift = Long.numberOfLeadingZeros(slots) + 1;
+		int segmentCount = (int) Math.max(1, slots >>> SEGMENT_SHIFT);
+		int segmentSlots = (int) Math.min(slots, 1L << SEGMENT_SHIFT);
+		segments = new ByteBuffer[segmentCount];
+		for (int i = 0; i < segmentCount; i++) {
+			segments[i] = ByteBuffer.allocateDirect(segmentSlots * ENTRY_SIZE).order(ByteOrder.nativeOrder());
+		}
+	}
+
+	/**
+	 * Returns the first slot to probe for a key. The key is scrambled by a multiplication, so keys that only differ
+	 * in their high bits are spread as well.
+	 *
+	 * @param key
+	 * @return
+	 */
+	private long home(long key) {
+
+		return (key * 0x9e3779b97f4a7c15L) >>> shift;
+	}
+
+	private long getLong(long slot, int offset) {
+
+		return segments[(int) (slot >>> SEGMENT_SHIFT)].getLong((int) ((slot & SEGMENT_MASK) * ENTRY_SIZE) + offset);
+	}
+
+	private void setLong(long slot, int offset, long value) {
+
+		segments[(int) (slot >>> SEGMENT_SHIFT)].putLong((int) ((slot & SEGMENT_MASK) * ENTRY_SIZE) + offset, value);
+	}
+
+	private int getInt(long slot, int offset) {
+
+		return segments[(int) (slot >>> SEGMENT_SHIFT)].getInt((int) ((slot & SEGMENT_MASK) * ENTRY_SIZE) + offset);
+	}
+
+	private void setInt(long slot, int offset, int value) {
+
+		segments[(int) (slot >>> SEGMENT_SHIFT)].putInt((int) ((slot & SEGMENT_MASK) * ENTRY_SIZE) + offset, value);
+	}
+
+	private static long normalize(long key) {
+
+		return key == EMPTY ? ZERO_KEY : key;
+	}
+
+	/**
+	 * The MurmurHash3 finalizer, which differs from the one of {@link TranspositionTable#key(long[])}
+	 *
+	 * @param z
+	 * @return
+	 */
+	private static long fmix(long z) {
+
+		z = (z ^ (z >>> 33)) * 0xff51afd7ed558ccdL;
+		z = (z ^ (z >>> 33)) * 0xc4ceb9fe1a85ec53L;
+		return z ^ (z >>> 33);
+	}
+}
@@ -0,0 +1,50 @@
+package sb.solver;
+
+import sb.model.Level;
+import sb.model.bitboard.BitboardLevel;
+
+/**
+ * Solves every level of the level list with a {@link ParallelBfsSolver} on one thread and on the given number of
+ * threads (all processors by default) and prints the times and the speedup.
+ */
+public class ParallelBenchmark {
+
+	/**
+	 * Number of runs per level and thread count, the fastest one is reported
+	 */
+	private static final int RUNS = 3;
+
+	public static void main(String[] args) {
+
+		int threads = args.length > 0 ? Integer.parseInt(args[0]) : Runtime.getRuntime().availableProcessors();
+
+		Level loader = new Level();
+		BitboardLevel level = new BitboardLevel(loader);
+		System.out.printf("%-6s %8s %12s %12s %8s%n", "level", "pushes", "1 thread", threads + " threads", "speedup");
+		for (int i = 0; i < loader.getLevelCount(); i++) {
+			loader.nextLevel();
+			long single = measure(new ParallelBfsSolver(1), level);
+			long parallel = measure(new ParallelBfsSolver(threads), level);
+			Solution solution = new ParallelBfsSolver(threads).solve(level);
+			System.out.printf("%-6d %8s %10.1fms %10.1fms %7.2fx%n", i + 1, solution == null ? "-" : solution.getPushCount(), single / 1e6, parallel / 1e6, (double) single / parallel);
+		}
+	}
+
+	/**
+	 * Returns the fastest time in nanoseconds the solver needs for the level
+	 *
+	 * @param solver
+	 * @param level
+	 * @return
+	 */
+	private static long measure(Solver solver, BitboardLevel level) {
+
+		long best = Long.MAX_VALUE;
+		for (int run = 0; run < RUNS; run++) {
+			long start = System.nanoTime();
+			solver.solve(level);
+			best = Math.min(best, System.nanoTime() - start);
+		}
+		return best;
+	}
+}
@@ -0,0 +1,238 @@
+package sb.solver;
+
+import sb.model.bitboard.BitboardLevel;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A breadth-first search over pushes that expands every layer in parallel. The layer is split into tasks of a
+ * {@link ForkJoinPool}, so idle threads steal work from busy ones, and the successors are deduplicated by a
+ * {@link ConcurrentVisitedSet}. Like {@link BfsSolver} it finds a solution with the minimal number of pushes.
+ */
+public class ParallelBfsSolver implements Solver {
+
+	/**
+	 * Number of nodes a task expands itself instead of splitting them into subtasks
+	 */
+	private static final int SPLIT_THRESHOLD = 16;
+
+	/**
+	 * Number of stripes of the visited set per thread
+	 */
+	private static final int STRIPES_PER_THREAD = 16;
+
+	/**
+	 * Number of threads to search with
+	 */
+	private final int parallelism;
+
+	/**
+	 * Number of nodes expanded by the latest search
+	 */
+	private long expandedNodes;
+
+	/**
+	 * Creates a solver using all available processors.
+	 */
+	public ParallelBfsSolver() {
+
+		this(Runtime.getRuntime().availableProcessors());
+	}
+
+	/**
+	 * @param parallelism Number of threads to search with
+	 */
+	public ParallelBfsSolver(int parallelism) {
+
+		this.parallelism = parallelism;
+	}
+
+	@Override public Solution solve(BitboardLevel level, SearchMonitor monitor) {
+
+		expandedNodes = 0;
+		monitor.start(level);
+		PushExpander expander = new PushExpander(level);
+		SearchNode root = expander.createRoot();
+		if (root.isCompleted()) {
+			return expander.toSolution(root);
+		}
+
+		Search search = new Search(level, new ConcurrentVisitedSet(parallelism * STRIPES_PER_THREAD), monitor);
+		search.visited.add(root);
+		List<SearchNode> layer = Collections.singletonList(root);
+		ForkJoinPool pool = new ForkJoinPool(parallelism);
+		try {
+			while (!layer.isEmpty()) {
+				// The limits other than the clock are checked for the whole layer before it is expanded
+				for (SearchNode node : layer) {
+					if (!monitor.expand(node)) {
+						return null;
+					}
+				}
+				Layer next = pool.invoke(new ExpandTask(search, layer, 0, layer.size()));
+
+				// Add the successors that did not fit into the visited set while the layer was expanded
+				while (!next.deferred.isEmpty() && search.solution.get() == null) {
+					search.visited.grow();
+					List<SearchNode> deferred = next.deferred;
+					next.deferred = new ArrayList<>();
+					for (SearchNode node : deferred) {
+						search.add(node, next);
+					}
+				}
+
+				if (search.solution.get() != null) {
+					return expander.toSolution(search.solution.get());
+				}
+				if (monitor.isStopped()) {
+					return null;
+				}
+				layer = next.nodes;
+			}
+			return null;
+		} finally {
+			pool.shutdown();
+			expandedNodes = search.expandedNodes.sum();
+		}
+	}
+
+	@Override public boolean provesUnsolvable() {
+
+		return true;
+	}
+
+	public long getExpandedNodes() {
+
+		return expandedNodes;
+	}
+
+	public int getParallelism() {
+
+		return parallelism;
+	}
+
+	/**
+	 * The state shared by all tasks of a search
+	 */
+	private static class Search {
+
+		private final ConcurrentVisitedSet visited;
+
+		/**
+		 * An expander for every thread, since expanders are not thread safe
+		 */
+		private final ThreadLocal<PushExpander> expanders;
+
+		/**
+		 * The first completed node found
+		 */
+		private final AtomicReference<SearchNode> solution = new AtomicReference<>();
+
+		private final LongAdder expandedNodes = new LongAdder();
+
+		private final SearchMonitor monitor;
+
+		Search(BitboardLevel level, ConcurrentVisitedSet visited, SearchMonitor monitor) {
+
+			this.visited = visited;
+			this.monitor = monitor;
+			this.expanders = ThreadLocal.withInitial(() -> {
+				PushExpander expander = new PushExpander(level);
+				monitor.trackExpander(expander);
+				return expander;
+			});
+		}
+
+		/**
+		 * Adds the node to the next layer if it has not been visited yet.
+		 *
+		 * @param node
+		 * @param next
+		 */
+		void add(SearchNode node, Layer next) {
+
+			switch (visited.add(node)) {
+				case ConcurrentVisitedSet.ADDED:
+					if (node.isCompleted()) {
+						solution.compareAndSet(null, node);
+					}
+					next.nodes.add(node);
+					break;
+				case ConcurrentVisitedSet.FULL:
+					next.deferred.add(node);
+					break;
+			}
+		}
+	}
+
+	/**
+	 * The nodes of the next layer found by a task
+	 */
+	private static class Layer {
+
+		private final List<SearchNode> nodes = new ArrayList<>();
+
+		/**
+		 * Successors that have to be added to the visited set after it has grown
+		 */
+		private List<SearchNode> deferred = new ArrayList<>();
+
+		void addAll(Layer other) {
+
+			nodes.addAll(other.nodes);
+			deferred.addAll(other.deferred);
+		}
+	}
+
+	/**
+	 * Expands a range of a layer, splitting it in halves until it is small enough.
+	 */
+	private static class ExpandTask extends RecursiveTask<Layer> {
+
+		private static final long serialVersionUID = 1L;
+
+		private final Search search;
+
+		private final List<SearchNode> layer;
+
+		private final int from;
+
+		private final int to;
+
+		ExpandTask(Search search, List<SearchNode> layer, int from, int to) {
+
+			this.search = search;
+			this.layer = layer;
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override protected Layer compute() {
+
+			if (to - from > SPLIT_THRESHOLD) {
+				int middle = (from + to) >>> 1;
+				ExpandTask right = new ExpandTask(search, layer, middle, to);
+				right.fork();
+				Layer next = new ExpandTask(search, layer, from, middle).compute();
+				next.addAll(right.join());
+				return next;
+			}
+
+			Layer next = new Layer();
+			PushExpander expander = search.expanders.get();
+			for (int i = from; i < to && search.solution.get() == null && search.monitor.checkDeadline(); i++) {
+				search.expandedNodes.increment();
+				for (SearchNode successor : expander.expand(layer.get(i))) {
+					search.add(successor, next);
+				}
+			}
+			return next;
+		}
+	}
+}
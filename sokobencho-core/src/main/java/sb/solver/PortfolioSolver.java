@@ -0,0 +1,182 @@
+package sb.solver;
+
+import sb.model.bitboard.BitboardLevel;
+
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Races several solvers on the same level, each on a thread of its own. Levels differ so much that no single search
+ * is fast on all of them, while the fastest of a few different searches usually is. By default, the first solution
+ * found is taken and the other searches are cancelled. Alternatively, all searches may be awaited until the time
+ * limit and the solution with the fewest pushes is taken.
+ * <p>
+ * Every strategy runs with its own {@link SearchMonitor} under the limits of the portfolio's monitor, so a node limit
+ * applies to each of them. The statistics of the portfolio's monitor cover all strategies while they run. A strategy
+ * that completes its search without a solution ends the race only if that proves the level unsolvable
+ * (see {@link Solver#provesUnsolvable()}). Otherwise the other strategies go on, since they may still find a solution
+ * the finished one has missed. A portfolio solver must not run several searches at once.
+ */
+public class PortfolioSolver implements Solver {
+
+	/**
+	 * Milliseconds between two checks of the limits and snapshots of the statistics while waiting for the strategies
+	 */
+	private static final long POLL_MILLIS = 10;
+
+	private final Solver[] strategies;
+
+	private final boolean waitForBest;
+
+	/**
+	 * The strategy that found the solution of the latest search
+	 */
+	private Solver winner;
+
+	/**
+	 * Number of nodes expanded by all strategies in the latest search
+	 */
+	private long expandedNodes;
+
+	/**
+	 * Races a breadth-first search, A*, IDA* and a greedy best-first search for the first solution
+	 */
+	public PortfolioSolver() {
+
+		this(false, new BfsSolver(), new AStarSolver(), new IdaStarSolver(), new GreedySolver());
+	}
+
+	/**
+	 * @param waitForBest Should all strategies be awaited until the time limit and the solution with the fewest pushes
+	 *                    be taken, rather than the first one?
+	 * @param strategies  The solvers to race, each used by one thread
+	 */
+	public PortfolioSolver(boolean waitForBest, Solver... strategies) {
+
+		if (strategies.length == 0) {
+			throw new IllegalArgumentException("A portfolio needs at least one strategy");
+		}
+		this.strategies = strategies.clone();
+		this.waitForBest = waitForBest;
+	}
+
+	@Override public Solution solve(BitboardLevel level, SearchMonitor monitor) {
+
+		winner = null;
+		expandedNodes = 0;
+		monitor.start(level);
+		SearchMonitor[] monitors = new SearchMonitor[strategies.length];
+		Solution[] solutions = new Solution[strategies.length];
+		ExecutorService pool = Executors.newFixedThreadPool(strategies.length, runnable -> {
+			Thread thread = new Thread(runnable, "portfolio-solver");
+			thread.setDaemon(true);
+			return thread;
+		});
+		CompletionService<Integer> race = new ExecutorCompletionService<>(pool);
+		for (int i = 0; i < strategies.length; i++) {
+			int index = i;
+			monitors[i] = new SearchMonitor(monitor);
+			race.submit(() -> {
+				solutions[index] = strategies[index].solve(level, monitors[index]);
+				return index;
+			});
+		}
+
+		Solution best = null;
+		SolveResult.Status stopReason = null;
+		boolean unsolvable = false;
+		int running = strategies.length;
+		try {
+			while (running > 0 && !unsolvable && (best == null || waitForBest)) {
+				Future<Integer> finished = race.poll(POLL_MILLIS, TimeUnit.MILLISECONDS);
+				if (finished == null) {
+					if (!monitor.checkResources()) {
+						break;
+					}
+					continue;
+				}
+				running--;
+				int index = finished.get();
+				Solution solution = solutions[index];
+				if (solution == null) {
+					// Stopped by its own limits, or no solution at all
+					stopReason = stopReason == null ? monitors[index].getStopReason() : stopReason;
+					unsolvable = monitors[index].getStopReason() == null && strategies[index].provesUnsolvable();
+				} else if (best == null || solution.getPushCount() < best.getPushCount()) {
+					best = solution;
+					winner = strategies[index];
+				}
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			monitor.cancel();
+		} catch (ExecutionException e) {
+			throw new IllegalStateException("A strategy of the portfolio has failed", e.getCause());
+		} finally {
+			for (SearchMonitor strategyMonitor : monitors) {
+				strategyMonitor.cancel();
+			}
+			pool.shutdown();
+			awaitTermination(pool);
+			for (SearchMonitor strategyMonitor : monitors) {
+				monitor.adopt(strategyMonitor);
+				expandedNodes += strategyMonitor.getExpandedNodes();
+			}
+		}
+
+		if (best == null && !unsolvable && stopReason != null) {
+			monitor.stop(stopReason);
+		}
+		return best;
+	}
+
+	/**
+	 * A portfolio proves a level unsolvable if one of its strategies does. If none of them does, a portfolio that ends
+	 * without a solution only reports that all strategies have ended without one.
+	 *
+	 * @return
+	 */
+	@Override public boolean provesUnsolvable() {
+
+		for (Solver strategy : strategies) {
+			if (strategy.provesUnsolvable()) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Waits until the cancelled strategies have returned, so they no longer take any cores.
+	 *
+	 * @param pool
+	 */
+	private static void awaitTermination(ExecutorService pool) {
+
+		try {
+			pool.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	/**
+	 * Returns the strategy that found the solution of the latest search
+	 *
+	 * @return The strategy, or null if there was no solution
+	 */
+	public Solver getWinner() {
+
+		return winner;
+	}
+
+	public long getExpandedNodes() {
+
+		return expandedNodes;
+	}
+}
@@ -0,0 +1,23 @@
+package sb.solver;
+
+/**
+ * The rules a search uses to skip pushes, counted separately in the {@link SearchStatistics}
+ */
+public enum PruneRule {
+	/**
+	 * A box has been pushed onto a dead square
+	 */
+	DEAD_SQUARE,
+	/**
+	 * A box off target has been frozen by the push (see {@link sb.model.FreezeDetector})
+	 */
+	FREEZE,
+	/**
+	 * The push does not lead into the PI-corral of the state (see {@link CorralPruner})
+	 */
+	CORRAL,
+	/**
+	 * The boxes can no longer be matched to all targets (see {@link Assignment})
+	 */
+	MATCHING
+}
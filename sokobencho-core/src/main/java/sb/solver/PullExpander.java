@@ -0,0 +1,96 @@
+package sb.solver;
+
+import sb.model.bitboard.Bitboard;
+import sb.model.bitboard.BitboardLevel;
+import sb.model.misc.Direction;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Generates the predecessors of search nodes by pulling boxes, which searches backwards from the completed level.
+ * A predecessor is a state from which walking around and pushing a box exactly once leads to the expanded state.
+ * The predecessors are normalized like the successors of a {@link PushExpander}, so states found in both directions
+ * are equal.
+ * <p>
+ * Each predecessor node stores the push leading from it to its parent node, so the pushes of a path found backwards
+ * are read from the node towards the completed level. Only reversible levels are supported (see
+ * {@link BitboardLevel#isReversible()}). An expander is not thread safe.
+ */
+class PullExpander extends PushExpander {
+
+	PullExpander(BitboardLevel original) {
+
+		super(original);
+	}
+
+	/**
+	 * Creates the nodes of the completed level, one for every region of cells the player can walk around in while all
+	 * boxes are on targets.
+	 *
+	 * @return
+	 */
+	List<SearchNode> createGoals() {
+
+		importOriginal();
+		level.fillTargets();
+		long[] covered = Bitboard.create(level.getCellCount());
+		List<SearchNode> goals = new ArrayList<>();
+		for (int cell = 0; cell < level.getCellCount(); cell++) {
+			if (level.isWalkable(cell) && !Bitboard.get(covered, cell)) {
+				// The first cell of a region is its top-left cell, so the state is already normalized
+				level.placePlayer(cell);
+				computeReachable();
+				for (int row = 0; row < covered.length; row++) {
+					covered[row] |= reachable[row];
+				}
+				goals.add(new SearchNode(exportState(level), null, -1, Direction.NONE, -1, true));
+			}
+		}
+		return goals;
+	}
+
+	/**
+	 * Generates all predecessors of the given node.
+	 *
+	 * @param node
+	 * @return
+	 */
+	@Override List<SearchNode> expand(SearchNode node) {
+
+		level.importState(node.getState());
+		computeReachable();
+
+		// Collect the candidate pulls first, the reachable cells are overwritten while normalizing the predecessors
+		int[] candidates = new int[4 * Bitboard.countAnd(reachable, reachable)];
+		int count = 0;
+		for (int cell = Bitboard.next(reachable, 0); cell >= 0; cell = Bitboard.next(reachable, cell + 1)) {
+			for (int d = 0; d < DIRECTIONS.length; d++) {
+				int offset = DIRECTIONS[d].getOffset();
+				if (level.isBox(cell - offset) && level.isWalkable(cell + offset)) {
+					candidates[count++] = (cell << 2) | d;
+				}
+			}
+		}
+
+		List<SearchNode> predecessors = new ArrayList<>(count);
+		boolean changed = false;
+		for (int i = 0; i < count; i++) {
+			int cell = candidates[i] >> 2;
+			Direction direction = DIRECTIONS[candidates[i] & 3];
+			if (changed) {
+				level.importState(node.getState());
+				changed = false;
+			}
+			level.placePlayer(cell);
+			if (level.pullPlayer(direction)) {
+				// Pushing from the new player cell against the pull moves the box back onto its old cell
+				int pushCell = cell + direction.getOffset();
+				int pushedTo = cell - direction.getOffset();
+				predecessors.add(new SearchNode(normalize(), node, pushCell, direction.getInverse(), pushedTo, false));
+				changed = true;
+			}
+		}
+		return predecessors;
+	}
+}
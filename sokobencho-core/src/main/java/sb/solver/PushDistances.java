@@ -0,0 +1,45 @@
+package sb.solver;
+
+import sb.model.Level;
+import sb.model.bitboard.BitboardLevel;
+
+/**
+ * For every target and every cell, the minimal number of pushes needed to move a box from that cell onto that
+ * target if there were no other moveables in the level. Doors are assumed to be open and a box pushed onto an
+ * object teleporter may either stay there or be teleported, so the distances are lower bounds of the real ones.
+ * <p>
+ * The distances are computed once when the level is loaded and shared by all copies of the level (see
+ * {@link Level#getPushDistance(int, int)}), so looking them up does not search anything.
+ */
+class PushDistances {
+
+	/**
+	 * Distance of cells from which a target cannot be reached at all
+	 */
+	static final int INFINITE = 1 << 20;
+
+	private final BitboardLevel level;
+
+	PushDistances(BitboardLevel level) {
+
+		this.level = level;
+	}
+
+	int getTargetCount() {
+
+		return level.getTargetCount();
+	}
+
+	/**
+	 * Returns the minimal number of pushes to move a box from the given cell onto the target with the given index.
+	 *
+	 * @param target
+	 * @param cell
+	 * @return
+	 */
+	int get(int target, int cell) {
+
+		int distance = level.getPushDistance(target, cell);
+		return distance == Level.UNREACHABLE ? INFINITE : distance;
+	}
+}
@@ -0,0 +1,313 @@
+package sb.solver;
+
+import sb.model.bitboard.Bitboard;
+import sb.model.bitboard.BitboardLevel;
+import sb.model.misc.Direction;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedList;
+import java.util.List;
+
+/**
+ * Generates the successors of search nodes. A successor is a state that can be reached by walking around and then
+ * pushing a box or rock exactly once, so a search over these successors expands pushes rather than steps.
+ * All states that only differ in the position of the player within the region it can reach without pushing are
+ * treated as one macro state by moving the player to the top-left cell of that region. On reversible levels, only the
+ * pushes into a PI-corral are generated if there is one (see {@link CorralPruner}), and pushes can be combined into
+ * macro moves (see {@link MacroMoves}).
+ * <p>
+ * The moves themselves are carried out by a private copy of the level, so all special tiles behave like in the game.
+ * An expander is not thread safe.
+ */
+class PushExpander {
+
+	/**
+	 * The directions a player can move into
+	 */
+	static final Direction[] DIRECTIONS = {Direction.N, Direction.O, Direction.S, Direction.W};
+
+	/**
+	 * The level to solve, left untouched
+	 */
+	private final BitboardLevel original;
+
+	/**
+	 * A copy of the level used to carry out the moves
+	 */
+	final BitboardLevel level;
+
+	/**
+	 * Cells the player can reach without pushing, as computed by the latest call of {@link #computeReachable()}
+	 */
+	final long[] reachable;
+
+	/**
+	 * Work queue of the path search between pushes
+	 */
+	private final int[] queue;
+
+	/**
+	 * Restricts the pushes to a PI-corral, null if the level is not reversible
+	 */
+	private final CorralPruner corrals;
+
+	/**
+	 * Extends pushes to macro moves, null if they are not used
+	 */
+	private final MacroMoves macros;
+
+	/**
+	 * Number of pushes skipped, indexed by the ordinal of the rule
+	 */
+	private final long[] prunes = new long[PruneRule.values().length];
+
+	PushExpander(BitboardLevel original) {
+
+		this(original, false);
+	}
+
+	/**
+	 * @param original
+	 * @param macroMoves Should pushes through tunnels and into the goal room be combined into macro moves (see
+	 *                   {@link MacroMoves})? They are only used on reversible levels.
+	 */
+	PushExpander(BitboardLevel original, boolean macroMoves) {
+
+		this.original = original;
+		this.level = new BitboardLevel(original);
+		this.reachable = Bitboard.create(level.getCellCount());
+		this.queue = new int[level.getCellCount()];
+		this.corrals = original.isReversible() ? new CorralPruner(level) : null;
+		this.macros = macroMoves && original.isReversible() ? new MacroMoves(original) : null;
+	}
+
+	/**
+	 * Creates the root node for the current state of the level to solve.
+	 *
+	 * @return
+	 */
+	SearchNode createRoot() {
+
+		importOriginal();
+		return new SearchNode(normalize(), null, -1, Direction.NONE, -1, level.isCompleted());
+	}
+
+	/**
+	 * Generates all successors of the given node. Pushes that are not possible are skipped.
+	 *
+	 * @param node
+	 * @return
+	 */
+	List<SearchNode> expand(SearchNode node) {
+
+		level.importState(node.getState());
+		computeReachable();
+
+		// Collect the candidate pushes first, the reachable cells are overwritten while normalizing the successors
+		int[] candidates = new int[4 * Bitboard.countAnd(reachable, reachable)];
+		int count = 0;
+		for (int cell = Bitboard.next(reachable, 0); cell >= 0; cell = Bitboard.next(reachable, cell + 1)) {
+			for (int d = 0; d < DIRECTIONS.length; d++) {
+				if (level.isPushable(cell + DIRECTIONS[d].getOffset())) {
+					candidates[count++] = (cell << 2) | d;
+				}
+			}
+		}
+		if (corrals != null) {
+			int unpruned = count;
+			count = corrals.prune(reachable, candidates, count);
+			prunes[PruneRule.CORRAL.ordinal()] += unpruned - count;
+		}
+
+		List<SearchNode> successors = new ArrayList<>(count);
+		boolean changed = false;
+		for (int i = 0; i < count; i++) {
+			int cell = candidates[i] >> 2;
+			Direction direction = DIRECTIONS[candidates[i] & 3];
+			if (changed) {
+				level.importState(node.getState());
+				changed = false;
+			}
+			level.placePlayer(cell);
+			int pushes = level.getPushCount();
+			level.movePlayer(direction);
+			if (level.getPushCount() != pushes) {
+				// The pushed moveable is either two cells away from the push cell or has been teleported
+				int pushedTo = cell + 2 * direction.getOffset();
+				if (!level.isPushable(pushedTo)) {
+					pushedTo = level.getTeleporterTarget(pushedTo);
+				}
+				int[] macro = null;
+				if (macros != null && !level.isDeadlocked()) {
+					macros.clearPushes();
+					pushedTo = macros.pushThroughTunnel(level, direction);
+					int packedTo = macros.packGoalRoom(level, pushedTo);
+					if (packedTo >= 0) {
+						pushedTo = packedTo;
+					}
+					macro = macros.getPushes();
+				}
+				// Skip pushes of boxes onto dead squares or into freeze deadlocks
+				if (!level.isDeadlocked()) {
+					boolean completed = level.isCompleted();
+					successors.add(new SearchNode(normalize(), node, cell, direction, pushedTo, macro, completed));
+				} else if (level.isBox(pushedTo) && level.isDeadSquare(pushedTo)) {
+					prunes[PruneRule.DEAD_SQUARE.ordinal()]++;
+				} else {
+					prunes[PruneRule.FREEZE.ordinal()]++;
+				}
+				changed = true;
+			}
+		}
+		return successors;
+	}
+
+	/**
+	 * Counts a successor skipped by the search itself
+	 *
+	 * @param rule
+	 */
+	void countPrune(PruneRule rule) {
+
+		prunes[rule.ordinal()]++;
+	}
+
+	/**
+	 * Returns the number of pushes skipped by the given rule so far
+	 *
+	 * @param rule
+	 * @return
+	 */
+	long getPrunes(PruneRule rule) {
+
+		return prunes[rule.ordinal()];
+	}
+
+	/**
+	 * Replaces the state of the copy by the state of the level to solve.
+	 */
+	void importOriginal() {
+
+		level.importState(exportState(original));
+	}
+
+	/**
+	 * Moves the player of the imported state to the top-left cell of its reachable region and exports the state.
+	 *
+	 * @return
+	 */
+	long[] normalize() {
+
+		level.placePlayer(computeReachable());
+		return exportState(level);
+	}
+
+	/**
+	 * Computes the cells the player can reach in the imported state without pushing.
+	 *
+	 * @return The top-left reachable cell
+	 */
+	int computeReachable() {
+
+		return level.computeReachable(reachable);
+	}
+
+	/**
+	 * Builds the complete move sequence leading from the state of the level to solve to the state of the given node.
+	 * The pushes are replayed on a fresh copy of the level and the walks in between are searched on the way.
+	 *
+	 * @param node
+	 * @return
+	 */
+	Solution toSolution(SearchNode node) {
+
+		LinkedList<SearchNode> path = new LinkedList<>();
+		for (SearchNode n = node; n.getParent() != null; n = n.getParent()) {
+			path.addFirst(n);
+		}
+		return toSolution(path);
+	}
+
+	/**
+	 * Builds the complete move sequence carrying out the pushes of the given nodes one after another, starting from
+	 * the state of the level to solve.
+	 *
+	 * @param path
+	 * @return
+	 */
+	Solution toSolution(List<SearchNode> path) {
+
+		BitboardLevel replay = new BitboardLevel(original);
+		StringBuilder moves = new StringBuilder();
+		for (SearchNode n : path) {
+			appendWalk(replay, n.getPushCell(), moves);
+			moves.append(n.getDirection().getLurd(true));
+			replay.movePlayer(n.getDirection());
+			if (n.getMacroPushes() != null) {
+				for (int push : n.getMacroPushes()) {
+					Direction direction = Direction.values()[push & 7];
+					appendWalk(replay, push >> 3, moves);
+					moves.append(direction.getLurd(true));
+					replay.movePlayer(direction);
+				}
+			}
+		}
+		return new Solution(moves.toString());
+	}
+
+	/**
+	 * Walks the player of the given level to the target cell on a shortest path without pushing and appends the
+	 * moves.
+	 *
+	 * @param replay
+	 * @param target
+	 * @param moves
+	 */
+	private void appendWalk(BitboardLevel replay, int target, StringBuilder moves) {
+
+		int start = replay.getPlayerCell();
+		if (start == target) {
+			return;
+		}
+
+		// Breadth-first search remembering the cell and direction each cell was reached from
+		int[] from = new int[replay.getCellCount()];
+		Direction[] via = new Direction[replay.getCellCount()];
+		Arrays.fill(from, -1);
+		from[start] = start;
+		queue[0] = start;
+		int head = 0;
+		int tail = 1;
+		while (head < tail && from[target] < 0) {
+			int cell = queue[head++];
+			for (Direction direction : DIRECTIONS) {
+				int next = cell + direction.getOffset();
+				if (replay.isWalkable(next)) {
+					next = replay.getArrivalCell(next);
+					if (from[next] < 0) {
+						from[next] = cell;
+						via[next] = direction;
+						queue[tail++] = next;
+					}
+				}
+			}
+		}
+
+		LinkedList<Direction> walk = new LinkedList<>();
+		for (int cell = target; cell != start; cell = from[cell]) {
+			walk.addFirst(via[cell]);
+		}
+		for (Direction direction : walk) {
+			moves.append(direction.getLurd(false));
+			replay.movePlayer(direction);
+		}
+	}
+
+	static long[] exportState(BitboardLevel level) {
+
+		long[] state = new long[level.getStateLength()];
+		level.exportState(state);
+		return state;
+	}
+}
@@ -0,0 +1,28 @@
+package sb.solver;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * A flight recorder event spanning a search run by a {@link LevelSolver}
+ */
+@Name("sb.solver.Search")
+@Label("Search")
+@Description("A search for the solution of a level")
+class SearchEvent extends StatisticsEvent {
+
+	@Label("Solver")
+	String solver;
+
+	@Label("Status")
+	String status;
+
+	@Label("Empty Targets")
+	@Description("Targets without a box in the best state reached")
+	int emptyTargets;
+
+	@Label("Pushes")
+	@Description("Pushes of the solution, -1 if none has been found")
+	int pushes;
+}
@@ -0,0 +1,70 @@
+package sb.solver;
+
+/**
+ * The resources a single search may use. A search that exceeds one of them is stopped (see {@link SearchMonitor}).
+ * Limits are immutable, the methods returning changed limits create new ones.
+ */
+public class SearchLimits {
+
+	/**
+	 * Limits that never stop a search
+	 */
+	public static final SearchLimits NONE = new SearchLimits(Long.MAX_VALUE, Long.MAX_VALUE, Long.MAX_VALUE);
+
+	private final long timeoutMillis;
+
+	private final long maxNodes;
+
+	private final long maxMemoryBytes;
+
+	/**
+	 * @param timeoutMillis  The wall-clock time the search may take, counted from its start
+	 * @param maxNodes       The number of nodes the search may expand
+	 * @param maxMemoryBytes The memory the process may use while searching, both on the heap and in the tables
+	 *                       outside of it
+	 */
+	public SearchLimits(long timeoutMillis, long maxNodes, long maxMemoryBytes) {
+
+		if (timeoutMillis <= 0 || maxNodes <= 0 || maxMemoryBytes <= 0) {
+			throw new IllegalArgumentException("Search limits must be positive");
+		}
+		this.timeoutMillis = timeoutMillis;
+		this.maxNodes = maxNodes;
+		this.maxMemoryBytes = maxMemoryBytes;
+	}
+
+	public SearchLimits withTimeoutMillis(long timeoutMillis) {
+
+		return new SearchLimits(timeoutMillis, maxNodes, maxMemoryBytes);
+	}
+
+	public SearchLimits withMaxNodes(long maxNodes) {
+
+		return new SearchLimits(timeoutMillis, maxNodes, maxMemoryBytes);
+	}
+
+	public SearchLimits withMaxMemoryBytes(long maxMemoryBytes) {
+
+		return new SearchLimits(timeoutMillis, maxNodes, maxMemoryBytes);
+	}
+
+	public long getTimeoutMillis() {
+
+		return timeoutMillis;
+	}
+
+	public long getMaxNodes() {
+
+		return maxNodes;
+	}
+
+	public long getMaxMemoryBytes() {
+
+		return maxMemoryBytes;
+	}
+
+	@Override public String toString() {
+
+		return "SearchLimits[timeout=" + timeoutMillis + "ms, nodes=" + maxNodes + ", memory=" + maxMemoryBytes + "]";
+	}
+}
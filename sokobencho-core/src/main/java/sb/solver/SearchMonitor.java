@@ -0,0 +1,408 @@
+package sb.solver;
+
+import sb.model.bitboard.BitboardLevel;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * Watches a running search: counts its expanded nodes, stops it when it exceeds its {@link SearchLimits} or has been
+ * cancelled, and remembers the node with the fewest empty targets the search has expanded so far. Solvers ask the
+ * monitor before expanding a node and give up as soon as it tells them to stop. Along with the limits, the monitor
+ * takes a snapshot of the {@link SearchStatistics} of the expanders, tables and frontier the solver has registered.
+ * <p>
+ * A monitor watches a single search. It is used by the thread running the search, only {@link #cancel()} and
+ * {@link #getStopReason()} and {@link #getStatistics()} may be called from other threads while the search is running.
+ * Searches run on behalf of another one, e.g. the strategies of a {@link PortfolioSolver}, are watched by monitors
+ * created for the monitor of that search, so their statistics show up in its snapshots while they run.
+ */
+public class SearchMonitor {
+
+	/**
+	 * Number of nodes between two checks of the clock and the memory
+	 */
+	private static final int CHECK_INTERVAL = 1 << 10;
+
+	private final SearchLimits limits;
+
+	/**
+	 * The monitor of the search this one is run on behalf of, or null
+	 */
+	private final SearchMonitor parent;
+
+	/**
+	 * The monitors of the searches run on behalf of this one that have not been adopted yet
+	 */
+	private final List<SearchMonitor> children = new CopyOnWriteArrayList<>();
+
+	/**
+	 * The reason the search has been stopped, or null while it may go on
+	 */
+	private volatile SolveResult.Status stopReason;
+
+	/**
+	 * Point of time the search has to be over by, see {@link System#nanoTime()}
+	 */
+	private long deadline;
+
+	private boolean hasDeadline;
+
+	/**
+	 * Memory used outside the heap by the search, e.g. by its {@link OffHeapTable}
+	 */
+	private LongSupplier offHeapUsage = () -> 0;
+
+	/**
+	 * The expanders, tables and frontier size of the search, for the statistics
+	 */
+	private final List<PushExpander> expanders = new CopyOnWriteArrayList<>();
+
+	private final List<TableStatistics> tables = new CopyOnWriteArrayList<>();
+
+	private LongSupplier frontierSize = () -> 0;
+
+	private long startNanos;
+
+	/**
+	 * Used heap when the search started
+	 */
+	private long startHeap;
+
+	/**
+	 * The latest snapshot of the statistics
+	 */
+	private volatile SearchStatistics statistics;
+
+	private long expandedNodes;
+
+	/**
+	 * The number of nodes to expand until the next check
+	 */
+	private int untilCheck;
+
+	private BitboardLevel level;
+
+	/**
+	 * The expanded node with the fewest empty targets, the earliest one if there are several
+	 */
+	private SearchNode bestNode;
+
+	private int bestEmptyTargets;
+
+	public SearchMonitor(SearchLimits limits) {
+
+		this.limits = limits;
+		this.parent = null;
+	}
+
+	/**
+	 * Creates a monitor for a search run on behalf of the search of the given monitor, within the same limits. The
+	 * given monitor has to be started already. Until it adopts the new monitor (see {@link #adopt(SearchMonitor)}), its
+	 * snapshots include the latest progress of the other search.
+	 *
+	 * @param parent
+	 */
+	SearchMonitor(SearchMonitor parent) {
+
+		this.limits = parent.limits;
+		this.parent = parent;
+		parent.children.add(this);
+	}
+
+	/**
+	 * Stops the search at its next check. May be called from any thread, also before the search has started.
+	 */
+	public void cancel() {
+
+		stopReason = SolveResult.Status.CANCELLED;
+	}
+
+	/**
+	 * Starts the clock. Called by solvers when they start searching the given level.
+	 *
+	 * @param level
+	 */
+	void start(BitboardLevel level) {
+
+		this.level = level;
+		long timeout = limits.getTimeoutMillis();
+		hasDeadline = timeout < TimeUnit.NANOSECONDS.toMillis(Long.MAX_VALUE) / 2;
+		deadline = hasDeadline ? System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeout) : 0;
+		untilCheck = 0;
+		bestNode = null;
+		bestEmptyTargets = Integer.MAX_VALUE;
+		expanders.clear();
+		tables.clear();
+		children.clear();
+		startNanos = System.nanoTime();
+		startHeap = usedHeap();
+		statistics = sample();
+	}
+
+	/**
+	 * Takes a last snapshot of the statistics. Called when the search is over.
+	 */
+	void finish() {
+
+		statistics = sample();
+	}
+
+	/**
+	 * Lets the memory used outside the heap count against the memory limit.
+	 *
+	 * @param usage Returns the number of bytes currently used
+	 */
+	void trackOffHeap(LongSupplier usage) {
+
+		offHeapUsage = usage;
+	}
+
+	/**
+	 * Adds the pruned pushes of the given expander to the statistics, and to those of the parent monitor. May be called
+	 * by any thread of a search.
+	 *
+	 * @param expander
+	 */
+	void trackExpander(PushExpander expander) {
+
+		expanders.add(expander);
+		if (parent != null) {
+			parent.trackExpander(expander);
+		}
+	}
+
+	/**
+	 * Adds the lookups and states of the given table to the statistics, and to those of the parent monitor.
+	 *
+	 * @param table
+	 */
+	void trackTable(TableStatistics table) {
+
+		tables.add(table);
+		if (parent != null) {
+			parent.trackTable(table);
+		}
+	}
+
+	/**
+	 * Adds the number of nodes waiting for expansion to the statistics.
+	 *
+	 * @param size Returns the current number, called by the thread of the search
+	 */
+	void trackFrontier(LongSupplier size) {
+
+		frontierSize = size;
+	}
+
+	/**
+	 * Counts the given node as expanded and remembers it if it has fewer empty targets than all nodes before. The
+	 * node has to be reachable from the start of the level by following its parents.
+	 *
+	 * @param node
+	 * @return False, if the search has to stop instead of expanding the node
+	 */
+	boolean expand(SearchNode node) {
+
+		int emptyTargets = level.countEmptyTargets(node.getState());
+		if (emptyTargets < bestEmptyTargets) {
+			bestEmptyTargets = emptyTargets;
+			bestNode = node;
+		}
+		return proceed(1);
+	}
+
+	/**
+	 * Counts nodes as expanded that are not on a path from the start, e.g. because the search runs backwards or does
+	 * not keep the parents of its nodes.
+	 *
+	 * @param nodes Number of nodes expanded since the last call
+	 * @return False, if the search has to stop
+	 */
+	boolean proceed(long nodes) {
+
+		if (stopReason != null) {
+			return false;
+		}
+		expandedNodes += nodes;
+		if (expandedNodes > limits.getMaxNodes()) {
+			stopReason = SolveResult.Status.NODE_LIMIT;
+			return false;
+		}
+		untilCheck -= nodes;
+		if (untilCheck <= 0) {
+			untilCheck = CHECK_INTERVAL;
+			return checkResources();
+		}
+		return true;
+	}
+
+	/**
+	 * Stops the search for the given reason, unless it has already been stopped.
+	 *
+	 * @param reason
+	 */
+	void stop(SolveResult.Status reason) {
+
+		if (stopReason == null) {
+			stopReason = reason;
+		}
+	}
+
+	/**
+	 * Adds the expanded nodes and the best node of a finished search that has been run on behalf of this one, e.g. by
+	 * another thread. The pruned pushes and table lookups of that search are part of the statistics already, as its
+	 * monitor has passed on its expanders and tables.
+	 *
+	 * @param other The monitor of the finished search, started on the same level
+	 */
+	void adopt(SearchMonitor other) {
+
+		children.remove(other);
+		expandedNodes += other.expandedNodes;
+		if (other.bestNode != null && other.bestEmptyTargets < bestEmptyTargets) {
+			bestEmptyTargets = other.bestEmptyTargets;
+			bestNode = other.bestNode;
+		}
+	}
+
+	/**
+	 * Checks the clock and the memory and takes a snapshot of the statistics. The used heap is taken from the runtime
+	 * and includes garbage that has not been collected yet.
+	 *
+	 * @return False, if the search has to stop
+	 */
+	boolean checkResources() {
+
+		if (!checkDeadline()) {
+			return false;
+		}
+		statistics = sample();
+		if (usedHeap() + offHeapUsage.getAsLong() > limits.getMaxMemoryBytes()) {
+			stopReason = SolveResult.Status.MEMORY_LIMIT;
+			return false;
+		}
+		return true;
+	}
+
+	private static long usedHeap() {
+
+		Runtime runtime = Runtime.getRuntime();
+		return runtime.totalMemory() - runtime.freeMemory();
+	}
+
+	/**
+	 * Collects the statistics of the search so far
+	 *
+	 * @return
+	 */
+	private SearchStatistics sample() {
+
+		long lookups = 0;
+		long hits = 0;
+		long collisions = 0;
+		long stored = 0;
+		for (TableStatistics table : tables) {
+			lookups += table.getLookups();
+			hits += table.getHits();
+			collisions += table.getCollisions();
+			stored += table.size();
+		}
+		long expanded = expandedNodes;
+		long frontier = frontierSize.getAsLong();
+		for (SearchMonitor child : children) {
+			SearchStatistics latest = child.statistics;
+			if (latest != null) {
+				expanded += latest.getExpandedNodes();
+				frontier += latest.getFrontierSize();
+			}
+		}
+		long[] prunes = new long[PruneRule.values().length];
+		for (PushExpander expander : expanders) {
+			for (PruneRule rule : PruneRule.values()) {
+				prunes[rule.ordinal()] += expander.getPrunes(rule);
+			}
+		}
+		return new SearchStatistics(System.nanoTime() - startNanos, expanded, lookups, hits, collisions, frontier,
+				tables.isEmpty() ? frontier : stored, usedHeap() - startHeap, prunes);
+	}
+
+	/**
+	 * Checks whether the search has been cancelled or run out of time. Unlike {@link #proceed(long)}, this can be done
+	 * by any thread of a search that has been started before.
+	 *
+	 * @return False, if the search has to stop
+	 */
+	boolean checkDeadline() {
+
+		if (stopReason != null) {
+			return false;
+		}
+		if (hasDeadline && System.nanoTime() - deadline > 0) {
+			stopReason = SolveResult.Status.TIMEOUT;
+			return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Has the search been stopped? Unlike {@link #proceed(long)}, this can be asked by any thread of a search.
+	 *
+	 * @return
+	 */
+	boolean isStopped() {
+
+		return stopReason != null;
+	}
+
+	/**
+	 * Returns why the search has been stopped
+	 *
+	 * @return The reason, or null if it has not been stopped
+	 */
+	public SolveResult.Status getStopReason() {
+
+		return stopReason;
+	}
+
+	/**
+	 * Returns the latest snapshot of the statistics, taken every few thousand nodes and when the search is over
+	 *
+	 * @return The statistics, or null if the search has not started yet
+	 */
+	public SearchStatistics getStatistics() {
+
+		return statistics;
+	}
+
+	public SearchLimits getLimits() {
+
+		return limits;
+	}
+
+	public long getExpandedNodes() {
+
+		return expandedNodes;
+	}
+
+	/**
+	 * Returns the expanded node with the fewest empty targets
+	 *
+	 * @return The node, or null if the search has not expanded any node on a path from the start
+	 */
+	SearchNode getBestNode() {
+
+		return bestNode;
+	}
+
+	/**
+	 * Returns the number of empty targets of the best node
+	 *
+	 * @return
+	 */
+	public int getBestEmptyTargets() {
+
+		return bestEmptyTargets;
+	}
+}
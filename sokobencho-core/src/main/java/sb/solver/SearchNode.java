@@ -0,0 +1,159 @@
+package sb.solver;
+
+import sb.model.misc.Direction;
+
+import java.util.Arrays;
+
+/**
+ * A node of the search tree: a level state (see {@link sb.model.bitboard.BitboardLevel#exportState(long[])}) together
+ * with the push that led to it, or the pushes of a macro move (see {@link MacroMoves}). Nodes are equal if their
+ * states are equal.
+ */
+class SearchNode {
+
+	private final long[] state;
+
+	private final SearchNode parent;
+
+	/**
+	 * The cell the player pushed from to get from the parent to this node
+	 */
+	private final int pushCell;
+
+	/**
+	 * The direction of the push that led to this node
+	 */
+	private final Direction direction;
+
+	/**
+	 * The cell the pushed box or rock ended up on, which is a teleporter target if it was teleported
+	 */
+	private final int pushedTo;
+
+	/**
+	 * The pushes of a macro move following the first one (see {@link #getMove()}), null for a single push
+	 */
+	private final int[] macroPushes;
+
+	/**
+	 * Number of pushes from the root to this node, counting every push of a macro move
+	 */
+	private final int depth;
+
+	/**
+	 * Are all targets filled in this state?
+	 */
+	private final boolean completed;
+
+	private final int hashCode;
+
+	SearchNode(long[] state, SearchNode parent, int pushCell, Direction direction, int pushedTo, boolean completed) {
+
+		this(state, parent, pushCell, direction, pushedTo, null, completed);
+	}
+
+	/**
+	 * @param state
+	 * @param parent
+	 * @param pushCell    The cell the player pushed from first
+	 * @param direction   The direction of the first push
+	 * @param pushedTo    The cell the pushed box or rock ended up on after all pushes
+	 * @param macroPushes The further pushes of a macro move, or null
+	 * @param completed
+	 */
+	SearchNode(long[] state, SearchNode parent, int pushCell, Direction direction, int pushedTo, int[] macroPushes,
+			boolean completed) {
+
+		this.state = state;
+		this.parent = parent;
+		this.pushCell = pushCell;
+		this.direction = direction;
+		this.pushedTo = pushedTo;
+		this.macroPushes = macroPushes;
+		this.depth = parent == null ? 0 : parent.depth + 1 + (macroPushes == null ? 0 : macroPushes.length);
+		this.completed = completed;
+		this.hashCode = Arrays.hashCode(state);
+	}
+
+	long[] getState() {
+
+		return state;
+	}
+
+	SearchNode getParent() {
+
+		return parent;
+	}
+
+	int getPushCell() {
+
+		return pushCell;
+	}
+
+	Direction getDirection() {
+
+		return direction;
+	}
+
+	/**
+	 * Returns the cell the pushed box or rock was standing on before the push
+	 *
+	 * @return
+	 */
+	int getPushedFrom() {
+
+		return pushCell + direction.getOffset();
+	}
+
+	/**
+	 * Returns the push that led to this node packed into an int: the push cell shifted left by three bits and the
+	 * ordinal of the direction in the low bits
+	 *
+	 * @return
+	 */
+	int getMove() {
+
+		return (pushCell << 3) | direction.ordinal();
+	}
+
+	/**
+	 * Returns the pushes of a macro move following the first one, each packed like {@link #getMove()}, or null if the
+	 * node was reached by a single push
+	 *
+	 * @return
+	 */
+	int[] getMacroPushes() {
+
+		return macroPushes;
+	}
+
+	int getPushedTo() {
+
+		return pushedTo;
+	}
+
+	int getDepth() {
+
+		return depth;
+	}
+
+	boolean isCompleted() {
+
+		return completed;
+	}
+
+	@Override public boolean equals(Object o) {
+
+		if (this == o)
+			return true;
+		if (o == null || getClass() != o.getClass())
+			return false;
+
+		return Arrays.equals(state, ((SearchNode) o).state);
+	}
+
+	@Override public int hashCode() {
+
+		return hashCode;
+	}
+}
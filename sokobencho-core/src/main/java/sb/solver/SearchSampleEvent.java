@@ -0,0 +1,20 @@
+package sb.solver;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Period;
+
+/**
+ * A flight recorder event emitted periodically for every running search, with the statistics of its latest
+ * snapshot
+ */
+@Name("sb.solver.SearchSample")
+@Label("Search Sample")
+@Description("The statistics of a running search")
+@Period("1 s")
+class SearchSampleEvent extends StatisticsEvent {
+
+	@Label("Elapsed Milliseconds")
+	long elapsedMillis;
+}
@@ -0,0 +1,152 @@
+package sb.solver;
+
+/**
+ * A snapshot of the statistics of a running or finished search, taken by its {@link SearchMonitor}. The table
+ * figures cover the tables of visited states the solver has registered; solvers without such a table report zero
+ * lookups.
+ */
+public class SearchStatistics {
+
+	private final long elapsedNanos;
+
+	private final long expandedNodes;
+
+	private final long tableLookups;
+
+	private final long tableHits;
+
+	private final long tableCollisions;
+
+	private final long frontierSize;
+
+	private final long storedStates;
+
+	private final long heapBytes;
+
+	/**
+	 * Number of pushes skipped, indexed by the ordinal of the rule
+	 */
+	private final long[] prunes;
+
+	/**
+	 * @param elapsedNanos    Time since the search started
+	 * @param expandedNodes
+	 * @param tableLookups
+	 * @param tableHits
+	 * @param tableCollisions
+	 * @param frontierSize    Number of nodes waiting to be expanded
+	 * @param storedStates    Number of states kept by the search: the states in its tables, or its frontier if it has
+	 *                        no table
+	 * @param heapBytes       Growth of the used heap since the search started
+	 * @param prunes          Pushes skipped per rule, indexed by its ordinal
+	 */
+	SearchStatistics(long elapsedNanos, long expandedNodes, long tableLookups, long tableHits, long tableCollisions, long frontierSize,
+			long storedStates, long heapBytes, long[] prunes) {
+
+		this.elapsedNanos = elapsedNanos;
+		this.expandedNodes = expandedNodes;
+		this.tableLookups = tableLookups;
+		this.tableHits = tableHits;
+		this.tableCollisions = tableCollisions;
+		this.frontierSize = frontierSize;
+		this.storedStates = storedStates;
+		this.heapBytes = heapBytes;
+		this.prunes = prunes;
+	}
+
+	public long getElapsedNanos() {
+
+		return elapsedNanos;
+	}
+
+	public long getExpandedNodes() {
+
+		return expandedNodes;
+	}
+
+	/**
+	 * Returns the average number of nodes expanded per second since the search started
+	 *
+	 * @return
+	 */
+	public double getNodesPerSecond() {
+
+		return elapsedNanos == 0 ? 0 : expandedNodes * 1e9 / elapsedNanos;
+	}
+
+	public long getTableLookups() {
+
+		return tableLookups;
+	}
+
+	public long getTableHits() {
+
+		return tableHits;
+	}
+
+	public long getTableCollisions() {
+
+		return tableCollisions;
+	}
+
+	/**
+	 * Returns the share of table lookups that found their state
+	 *
+	 * @return
+	 */
+	public double getTableHitRate() {
+
+		return tableLookups == 0 ? 0 : (double) tableHits / tableLookups;
+	}
+
+	/**
+	 * Returns the number of collisions per table lookup
+	 *
+	 * @return
+	 */
+	public double getTableCollisionRate() {
+
+		return tableLookups == 0 ? 0 : (double) tableCollisions / tableLookups;
+	}
+
+	/**
+	 * Returns the number of nodes waiting to be expanded, e.g. the size of the open list
+	 *
+	 * @return
+	 */
+	public long getFrontierSize() {
+
+		return frontierSize;
+	}
+
+	public long getStoredStates() {
+
+		return storedStates;
+	}
+
+	/**
+	 * Returns the growth of the used heap since the search started per stored state. Garbage that has not been
+	 * collected yet is included, so this is a rough upper estimate.
+	 *
+	 * @return
+	 */
+	public long getHeapBytesPerState() {
+
+		return storedStates == 0 ? 0 : Math.max(0, heapBytes) / storedStates;
+	}
+
+	public long getPrunes(PruneRule rule) {
+
+		return prunes[rule.ordinal()];
+	}
+
+	@Override public String toString() {
+
+		StringBuilder text = new StringBuilder(String.format("%d nodes (%.0f/s), hit rate %.2f, collision rate %.2f, frontier %d, %d bytes/state",
+				expandedNodes, getNodesPerSecond(), getTableHitRate(), getTableCollisionRate(), frontierSize, getHeapBytesPerState()));
+		for (PruneRule rule : PruneRule.values()) {
+			text.append(", ").append(rule.name().toLowerCase()).append(' ').append(prunes[rule.ordinal()]);
+		}
+		return text.toString();
+	}
+}
@@ -0,0 +1,44 @@
+package sb.solver;
+
+/**
+ * A solution of a level as a sequence of moves in LURD notation: 'u', 'r', 'd' and 'l' are moves up, right, down and
+ * left, pushes are written in upper case.
+ */
+public class Solution {
+
+	private final String moves;
+
+	private final int pushCount;
+
+	public Solution(String moves) {
+
+		this.moves = moves;
+		int pushes = 0;
+		for (int i = 0; i < moves.length(); i++) {
+			if (Character.isUpperCase(moves.charAt(i))) {
+				pushes++;
+			}
+		}
+		this.pushCount = pushes;
+	}
+
+	public String getMoves() {
+
+		return moves;
+	}
+
+	public int getMoveCount() {
+
+		return moves.length();
+	}
+
+	public int getPushCount() {
+
+		return pushCount;
+	}
+
+	@Override public String toString() {
+
+		return moves;
+	}
+}
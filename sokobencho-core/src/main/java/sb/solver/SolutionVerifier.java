@@ -0,0 +1,195 @@
+package sb.solver;
+
+import sb.model.Level;
+import sb.model.MoveResult;
+
+import java.io.BufferedReader;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Verifies submitted solutions in bulk. Every input line holds a level number as in the level list, counted from 1,
+ * and the moves in LURD notation, separated by white space. Empty lines and lines starting with '#' are skipped.
+ * <p>
+ * The submissions are replayed by a pool of threads, each on a {@link Level} of its own. A result line is written as
+ * soon as a submission has been replayed, so the results are not in input order but carry the input line number:
+ * <pre>
+ * line level PASS|FAIL moves pushes [reason]
+ * </pre>
+ * A solution passes if all its moves are legal and its last move completes the level. The counts are those of the
+ * moves that have been applied.
+ */
+public class SolutionVerifier {
+
+	/**
+	 * Number of submissions per thread waiting to be replayed. Reading pauses while the queue is full, so the input
+	 * may be arbitrarily long.
+	 */
+	private static final int QUEUE_PER_THREAD = 64;
+
+	private final int threads;
+
+	private final PrintStream out;
+
+	private final AtomicInteger passed = new AtomicInteger();
+
+	private final AtomicInteger failed = new AtomicInteger();
+
+	/**
+	 * The level of every thread, loaded with the level of its latest submission
+	 */
+	private final ThreadLocal<Level> levels = ThreadLocal.withInitial(Level::new);
+
+	/**
+	 * @param threads Number of threads replaying submissions
+	 * @param out     Stream the results are written to
+	 */
+	public SolutionVerifier(int threads, PrintStream out) {
+
+		this.threads = threads;
+		this.out = out;
+	}
+
+	/**
+	 * Usage: SolutionVerifier [file|-] [threads]
+	 * Reads the submissions from the file or from the standard input and writes the results to the standard output.
+	 *
+	 * @param args
+	 * @throws IOException
+	 */
+	public static void main(String[] args) throws IOException {
+
+		int threads = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+		SolutionVerifier verifier = new SolutionVerifier(threads, System.out);
+		if (args.length == 0 || args[0].equals("-")) {
+			verifier.verify(System.in);
+		} else {
+			try (InputStream in = new FileInputStream(args[0])) {
+				verifier.verify(in);
+			}
+		}
+		System.err.println(verifier.getPassed() + " passed, " + verifier.getFailed() + " failed");
+	}
+
+	/**
+	 * Verifies all submissions of the input and returns when all results have been written.
+	 *
+	 * @param in
+	 * @throws IOException
+	 */
+	public void verify(InputStream in) throws IOException {
+
+		ThreadPoolExecutor pool = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+				new ArrayBlockingQueue<>(threads * QUEUE_PER_THREAD), runnable -> {
+			Thread thread = new Thread(runnable, "solution-verifier");
+			thread.setDaemon(true);
+			return thread;
+		}, new ThreadPoolExecutor.CallerRunsPolicy());
+		try {
+			BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+			String line;
+			int lineNumber = 0;
+			while ((line = reader.readLine()) != null) {
+				lineNumber++;
+				String submission = line.trim();
+				if (!submission.isEmpty() && submission.charAt(0) != '#') {
+					int number = lineNumber;
+					pool.execute(() -> verify(number, submission));
+				}
+			}
+		} finally {
+			pool.shutdown();
+			try {
+				pool.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			out.flush();
+		}
+	}
+
+	/**
+	 * Replays a submission on the level of the current thread and writes the result.
+	 *
+	 * @param lineNumber
+	 * @param submission Level number and moves
+	 */
+	private void verify(int lineNumber, String submission) {
+
+		String[] fields = submission.split("\\s+");
+		String levelId = fields[0];
+		StringBuilder moves = new StringBuilder();
+		for (int i = 1; i < fields.length; i++) {
+			moves.append(fields[i]);
+		}
+
+		Level level = levels.get();
+		int levelNumber;
+		try {
+			levelNumber = Integer.parseInt(levelId);
+		} catch (NumberFormatException e) {
+			report(lineNumber, levelId, null, "unknown level");
+			return;
+		}
+		if (levelNumber < 1 || levelNumber > level.getLevelCount()) {
+			report(lineNumber, levelId, null, "unknown level");
+			return;
+		}
+		level.selectLevel(levelNumber);
+		if (level.getCurrentLevelIndex() != levelNumber) {
+			report(lineNumber, levelId, null, "level could not be read");
+			return;
+		}
+
+		MoveResult result = level.applyMoves(moves);
+		if (!result.isLegal()) {
+			report(lineNumber, levelId, result, "illegal move at " + result.getIllegalMove());
+		} else if (!result.isCompleted()) {
+			report(lineNumber, levelId, result, "level not completed");
+		} else if (result.getMoveCount() < moves.length()) {
+			report(lineNumber, levelId, result, "moves after completion at " + result.getMoveCount());
+		} else {
+			report(lineNumber, levelId, result, null);
+		}
+	}
+
+	/**
+	 * Writes the result of a submission as one line.
+	 *
+	 * @param lineNumber
+	 * @param levelId
+	 * @param result     The result of the replay, or null if it has not been replayed
+	 * @param failure    Why the submission has failed, or null if it has passed
+	 */
+	private void report(int lineNumber, String levelId, MoveResult result, String failure) {
+
+		(failure == null ? passed : failed).incrementAndGet();
+		StringBuilder line = new StringBuilder();
+		line.append(lineNumber).append(' ').append(levelId).append(failure == null ? " PASS " : " FAIL ");
+		line.append(result == null ? 0 : result.getMoveCount()).append(' ');
+		line.append(result == null ? 0 : result.getPushCount());
+		if (failure != null) {
+			line.append(' ').append(failure);
+		}
+		// println of a whole line is atomic, so lines of different threads do not interleave
+		out.println(line);
+	}
+
+	public int getPassed() {
+
+		return passed.get();
+	}
+
+	public int getFailed() {
+
+		return failed.get();
+	}
+}
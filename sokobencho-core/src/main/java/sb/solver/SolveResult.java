@@ -0,0 +1,146 @@
+package sb.solver;
+
+/**
+ * The outcome of a search run by a {@link LevelSolver}: the solution if one was found, otherwise why the search ended
+ * and how far it got. The progress is the state with the fewest empty targets the search expanded, given by the moves
+ * reaching it from the start.
+ */
+public class SolveResult {
+
+	/**
+	 * How a search ended
+	 */
+	public enum Status {
+		/**
+		 * A solution has been found
+		 */
+		SOLVED,
+		/**
+		 * The whole search space has been searched without finding a solution, which proves the level unsolvable
+		 * (see {@link Solver#provesUnsolvable()})
+		 */
+		UNSOLVABLE,
+		/**
+		 * The solver has run out of states to search without finding a solution. As it may have left out states
+		 * leading to one, the level may still be solvable.
+		 */
+		EXHAUSTED,
+		/**
+		 * The search has been cancelled from outside
+		 */
+		CANCELLED,
+		/**
+		 * The search has taken longer than allowed
+		 */
+		TIMEOUT,
+		/**
+		 * The search has expanded more nodes than allowed
+		 */
+		NODE_LIMIT,
+		/**
+		 * The search has used more memory than allowed
+		 */
+		MEMORY_LIMIT
+	}
+
+	private final Status status;
+
+	private final Solution solution;
+
+	private final Solution bestPrefix;
+
+	private final int emptyTargets;
+
+	private final long expandedNodes;
+
+	private final long elapsedMillis;
+
+	private final SearchStatistics statistics;
+
+	/**
+	 * @param status
+	 * @param solution      The solution, or null if none has been found
+	 * @param bestPrefix    The moves to the state with the fewest empty targets, or null if unknown
+	 * @param emptyTargets  Number of empty targets of that state
+	 * @param expandedNodes
+	 * @param elapsedMillis
+	 * @param statistics    The final statistics of the search
+	 */
+	SolveResult(Status status, Solution solution, Solution bestPrefix, int emptyTargets, long expandedNodes, long elapsedMillis,
+			SearchStatistics statistics) {
+
+		this.status = status;
+		this.solution = solution;
+		this.bestPrefix = bestPrefix;
+		this.emptyTargets = emptyTargets;
+		this.expandedNodes = expandedNodes;
+		this.elapsedMillis = elapsedMillis;
+		this.statistics = statistics;
+	}
+
+	public Status getStatus() {
+
+		return status;
+	}
+
+	public boolean isSolved() {
+
+		return status == Status.SOLVED;
+	}
+
+	/**
+	 * Returns the solution
+	 *
+	 * @return The solution, or null if the search has not found one
+	 */
+	public Solution getSolution() {
+
+		return solution;
+	}
+
+	/**
+	 * Returns the moves from the start to the state with the fewest empty targets the search has reached. For a
+	 * solved level this is the solution.
+	 *
+	 * @return The moves, or null if the solver does not keep the paths to its states
+	 */
+	public Solution getBestPrefix() {
+
+		return bestPrefix;
+	}
+
+	/**
+	 * Returns the number of targets without a box in the state reached by {@link #getBestPrefix()}
+	 *
+	 * @return
+	 */
+	public int getEmptyTargets() {
+
+		return emptyTargets;
+	}
+
+	public long getExpandedNodes() {
+
+		return expandedNodes;
+	}
+
+	public long getElapsedMillis() {
+
+		return elapsedMillis;
+	}
+
+	/**
+	 * Returns the statistics of the search when it was over
+	 *
+	 * @return The statistics, or null if the solver has not started searching
+	 */
+	public SearchStatistics getStatistics() {
+
+		return statistics;
+	}
+
+	@Override public String toString() {
+
+		return status + " after " + expandedNodes + " nodes and " + elapsedMillis + "ms, " + emptyTargets + " empty targets";
+	}
+}
@@ -0,0 +1,43 @@
+package sb.solver;
+
+import sb.model.bitboard.BitboardLevel;
+
+/**
+ * Interface for searching solutions of sokobencho levels
+ */
+public interface Solver {
+
+	/**
+	 * Search a solution for the current state of the given level. The level itself is not changed.
+	 *
+	 * @param level
+	 * @return The solution, or null if the level cannot be solved from its current state
+	 */
+	default Solution solve(BitboardLevel level) {
+
+		return solve(level, new SearchMonitor(SearchLimits.NONE));
+	}
+
+	/**
+	 * Search a solution for the current state of the given level while the given monitor lets the search go on. The
+	 * level itself is not changed.
+	 *
+	 * @param level
+	 * @param monitor Started by the solver, see {@link SearchMonitor#getStopReason()} for why a search returned early
+	 * @return The solution, or null if the level cannot be solved from its current state or the search has been
+	 * stopped
+	 */
+	Solution solve(BitboardLevel level, SearchMonitor monitor);
+
+	/**
+	 * Does a search that has neither found a solution nor been stopped prove that the level cannot be solved? It does
+	 * if the solver searches the whole state space and tells all states apart. A solver that prunes states by a hash
+	 * alone may miss a solution if two states collide.
+	 *
+	 * @return
+	 */
+	default boolean provesUnsolvable() {
+
+		return false;
+	}
+}
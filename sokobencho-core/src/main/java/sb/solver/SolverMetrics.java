@@ -0,0 +1,242 @@
+package sb.solver;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Collects the statistics of all searches run by {@link LevelSolver}s in this JVM and publishes them as an MBean and,
+ * if the runtime has a flight recorder, as flight recorder events. Running searches are read from the latest
+ * snapshot of their {@link SearchMonitor}, finished searches are added to the totals.
+ */
+public class SolverMetrics implements SolverMetricsMXBean {
+
+	/**
+	 * The name the metrics are registered with at the platform MBean server
+	 */
+	public static final String OBJECT_NAME = "sb.solver:type=SolverMetrics";
+
+	private static final SolverMetrics INSTANCE = create();
+
+	/**
+	 * Does the runtime have a flight recorder? It has been added to Java 8 only late.
+	 */
+	private final boolean flightRecorder;
+
+	private final Set<SearchMonitor> activeMonitors = ConcurrentHashMap.newKeySet();
+
+	/**
+	 * The totals of the finished searches
+	 */
+	private final LongAdder finishedSearches = new LongAdder();
+
+	private final LongAdder expandedNodes = new LongAdder();
+
+	private final LongAdder tableLookups = new LongAdder();
+
+	private final LongAdder tableHits = new LongAdder();
+
+	private final LongAdder tableCollisions = new LongAdder();
+
+	private final LongAdder[] prunes = new LongAdder[PruneRule.values().length];
+
+	private SolverMetrics(boolean flightRecorder) {
+
+		this.flightRecorder = flightRecorder;
+		for (int i = 0; i < prunes.length; i++) {
+			prunes[i] = new LongAdder();
+		}
+	}
+
+	private static SolverMetrics create() {
+
+		boolean flightRecorder;
+		try {
+			Class.forName("jdk.jfr.FlightRecorder");
+			flightRecorder = true;
+		} catch (ClassNotFoundException e) {
+			flightRecorder = false;
+		}
+
+		SolverMetrics metrics = new SolverMetrics(flightRecorder);
+		try {
+			ManagementFactory.getPlatformMBeanServer().registerMBean(metrics, new ObjectName(OBJECT_NAME));
+		} catch (JMException e) {
+			e.printStackTrace();
+		}
+		if (flightRecorder) {
+			FlightRecorderEvents.register(metrics);
+		}
+		return metrics;
+	}
+
+	public static SolverMetrics getInstance() {
+
+		return INSTANCE;
+	}
+
+	/**
+	 * Adds a search about to be run to the running searches.
+	 *
+	 * @param monitor The monitor of the search
+	 * @return The flight recorder event of the search, or null if there is no flight recorder
+	 */
+	Object begin(SearchMonitor monitor) {
+
+		activeMonitors.add(monitor);
+		return flightRecorder ? FlightRecorderEvents.beginSearch() : null;
+	}
+
+	/**
+	 * Moves a search from the running searches to the totals.
+	 *
+	 * @param monitor The monitor of the search, already finished
+	 * @param event   The event returned by {@link #begin(SearchMonitor)}
+	 * @param solver
+	 * @param result  The result of the search, or null if it has failed
+	 */
+	void end(SearchMonitor monitor, Object event, Solver solver, SolveResult result) {
+
+		if (!activeMonitors.remove(monitor)) {
+			return;
+		}
+		SearchStatistics statistics = monitor.getStatistics();
+		if (statistics != null) {
+			expandedNodes.add(statistics.getExpandedNodes());
+			tableLookups.add(statistics.getTableLookups());
+			tableHits.add(statistics.getTableHits());
+			tableCollisions.add(statistics.getTableCollisions());
+			for (PruneRule rule : PruneRule.values()) {
+				prunes[rule.ordinal()].add(statistics.getPrunes(rule));
+			}
+		}
+		finishedSearches.increment();
+		if (event != null && result != null) {
+			FlightRecorderEvents.commitSearch(event, solver, result);
+		}
+	}
+
+	/**
+	 * Returns the monitors of the running searches
+	 *
+	 * @return
+	 */
+	Collection<SearchMonitor> getActiveMonitors() {
+
+		return Collections.unmodifiableSet(activeMonitors);
+	}
+
+	@Override public int getActiveSearches() {
+
+		return activeMonitors.size();
+	}
+
+	@Override public long getFinishedSearches() {
+
+		return finishedSearches.sum();
+	}
+
+	@Override public long getExpandedNodes() {
+
+		long total = expandedNodes.sum();
+		for (SearchStatistics statistics : activeStatistics()) {
+			total += statistics.getExpandedNodes();
+		}
+		return total;
+	}
+
+	@Override public double getNodesPerSecond() {
+
+		double rate = 0;
+		for (SearchStatistics statistics : activeStatistics()) {
+			rate += statistics.getNodesPerSecond();
+		}
+		return rate;
+	}
+
+	@Override public double getTableHitRate() {
+
+		long lookups = tableLookups.sum();
+		long hits = tableHits.sum();
+		for (SearchStatistics statistics : activeStatistics()) {
+			lookups += statistics.getTableLookups();
+			hits += statistics.getTableHits();
+		}
+		return lookups == 0 ? 0 : (double) hits / lookups;
+	}
+
+	@Override public double getTableCollisionRate() {
+
+		long lookups = tableLookups.sum();
+		long collisions = tableCollisions.sum();
+		for (SearchStatistics statistics : activeStatistics()) {
+			lookups += statistics.getTableLookups();
+			collisions += statistics.getTableCollisions();
+		}
+		return lookups == 0 ? 0 : (double) collisions / lookups;
+	}
+
+	@Override public long getOpenListSize() {
+
+		long size = 0;
+		for (SearchStatistics statistics : activeStatistics()) {
+			size += statistics.getFrontierSize();
+		}
+		return size;
+	}
+
+	@Override public long getHeapBytesPerState() {
+
+		long bytes = 0;
+		int count = 0;
+		for (SearchStatistics statistics : activeStatistics()) {
+			bytes += statistics.getHeapBytesPerState();
+			count++;
+		}
+		return count == 0 ? 0 : bytes / count;
+	}
+
+	@Override public long getDeadSquarePrunes() {
+
+		return getPrunes(PruneRule.DEAD_SQUARE);
+	}
+
+	@Override public long getFreezePrunes() {
+
+		return getPrunes(PruneRule.FREEZE);
+	}
+
+	@Override public long getCorralPrunes() {
+
+		return getPrunes(PruneRule.CORRAL);
+	}
+
+	@Override public long getMatchingPrunes() {
+
+		return getPrunes(PruneRule.MATCHING);
+	}
+
+	private long getPrunes(PruneRule rule) {
+
+		long total = prunes[rule.ordinal()].sum();
+		for (SearchStatistics statistics : activeStatistics()) {
+			total += statistics.getPrunes(rule);
+		}
+		return total;
+	}
+
+	/**
+	 * Returns the latest statistics of the running searches that have started
+	 *
+	 * @return
+	 */
+	private Iterable<SearchStatistics> activeStatistics() {
+
+		return () -> activeMonitors.stream().map(SearchMonitor::getStatistics).filter(statistics -> statistics != null).iterator();
+	}
+}
@@ -0,0 +1,47 @@
+package sb.solver;
+
+/**
+ * Live metrics of the searches run by {@link LevelSolver}s in this JVM, registered as
+ * {@value SolverMetrics#OBJECT_NAME}. Rates are taken over the running searches, totals include the finished ones.
+ */
+public interface SolverMetricsMXBean {
+
+	int getActiveSearches();
+
+	long getFinishedSearches();
+
+	long getExpandedNodes();
+
+	/**
+	 * Returns the sum of the node rates of the running searches
+	 *
+	 * @return
+	 */
+	double getNodesPerSecond();
+
+	double getTableHitRate();
+
+	double getTableCollisionRate();
+
+	/**
+	 * Returns the number of nodes waiting for expansion in all running searches
+	 *
+	 * @return
+	 */
+	long getOpenListSize();
+
+	/**
+	 * Returns the average heap bytes per stored state of the running searches
+	 *
+	 * @return
+	 */
+	long getHeapBytesPerState();
+
+	long getDeadSquarePrunes();
+
+	long getFreezePrunes();
+
+	long getCorralPrunes();
+
+	long getMatchingPrunes();
+}
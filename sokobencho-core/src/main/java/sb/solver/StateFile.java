@@ -0,0 +1,195 @@
+package sb.solver;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * A file of states (see {@link sb.model.bitboard.BitboardLevel#exportState(long[])}) in ascending order without
+ * duplicates. Every state is stored relative to its predecessor: the number of leading words both share, the
+ * difference of the first word that differs and the remaining words, all as variable length integers. Since sorted
+ * states share long prefixes and most words are sparse bitboard rows, a state takes only a few bytes.
+ */
+class StateFile {
+
+	private static final int MAGIC = 0x5b5f5354;
+
+	private static final int BUFFER_SIZE = 1 << 16;
+
+	private StateFile() {
+
+	}
+
+	/**
+	 * Compares two states word by word, treating the words as unsigned.
+	 *
+	 * @param a
+	 * @param b
+	 * @return
+	 */
+	static int compare(long[] a, long[] b) {
+
+		for (int i = 0; i < a.length; i++) {
+			if (a[i] != b[i]) {
+				return Long.compareUnsigned(a[i], b[i]);
+			}
+		}
+		return 0;
+	}
+
+	/**
+	 * Writes states in ascending order. States that are not greater than the previous one are rejected.
+	 */
+	static class Writer implements Closeable {
+
+		private final OutputStream out;
+
+		private final long[] previous;
+
+		private long count;
+
+		Writer(Path path, int stateLength) throws IOException {
+
+			out = new BufferedOutputStream(Files.newOutputStream(path), BUFFER_SIZE);
+			previous = new long[stateLength];
+			writeInt(MAGIC);
+			writeInt(stateLength);
+		}
+
+		void write(long[] state) throws IOException {
+
+			if (count > 0 && compare(state, previous) <= 0) {
+				throw new IllegalArgumentException("States must be written in ascending order without duplicates");
+			}
+			int prefix = 0;
+			while (prefix < state.length - 1 && state[prefix] == previous[prefix]) {
+				prefix++;
+			}
+			writeVarLong(prefix);
+			writeVarLong(state[prefix] - previous[prefix]);
+			for (int i = prefix + 1; i < state.length; i++) {
+				writeVarLong(state[i]);
+			}
+			System.arraycopy(state, 0, previous, 0, state.length);
+			count++;
+		}
+
+		long getCount() {
+
+			return count;
+		}
+
+		@Override public void close() throws IOException {
+
+			out.close();
+		}
+
+		private void writeInt(int value) throws IOException {
+
+			for (int shift = 24; shift >= 0; shift -= 8) {
+				out.write(value >>> shift);
+			}
+		}
+
+		private void writeVarLong(long value) throws IOException {
+
+			while ((value & ~0x7fL) != 0) {
+				out.write((int) (value & 0x7f) | 0x80);
+				value >>>= 7;
+			}
+			out.write((int) value);
+		}
+	}
+
+	/**
+	 * Reads the states of a file one after another.
+	 */
+	static class Reader implements Closeable {
+
+		private final InputStream in;
+
+		/**
+		 * The latest state read
+		 */
+		private final long[] state;
+
+		Reader(Path path, int stateLength) throws IOException {
+
+			in = new BufferedInputStream(Files.newInputStream(path), BUFFER_SIZE);
+			if (readInt() != MAGIC || readInt() != stateLength) {
+				in.close();
+				throw new IOException("Not a state file of this level: " + path);
+			}
+			state = new long[stateLength];
+		}
+
+		/**
+		 * Reads the next state, which can be accessed by {@link #getState()} afterwards.
+		 *
+		 * @return False, if there are no more states
+		 * @throws IOException
+		 */
+		boolean next() throws IOException {
+
+			int first = in.read();
+			if (first < 0) {
+				return false;
+			}
+			int prefix = (int) readVarLong(first);
+			state[prefix] += readVarLong(in.read());
+			for (int i = prefix + 1; i < state.length; i++) {
+				state[i] = readVarLong(in.read());
+			}
+			return true;
+		}
+
+		/**
+		 * Returns the latest state read. The array is overwritten by the next call of {@link #next()}.
+		 *
+		 * @return
+		 */
+		long[] getState() {
+
+			return state;
+		}
+
+		@Override public void close() throws IOException {
+
+			in.close();
+		}
+
+		private int readInt() throws IOException {
+
+			int value = 0;
+			for (int i = 0; i < 4; i++) {
+				int b = in.read();
+				if (b < 0) {
+					throw new EOFException();
+				}
+				value = (value << 8) | b;
+			}
+			return value;
+		}
+
+		private long readVarLong(int b) throws IOException {
+
+			long value = 0;
+			for (int shift = 0; ; shift += 7) {
+				if (b < 0) {
+					throw new EOFException();
+				}
+				value |= (long) (b & 0x7f) << shift;
+				if ((b & 0x80) == 0) {
+					return value;
+				}
+				b = in.read();
+			}
+		}
+	}
+}
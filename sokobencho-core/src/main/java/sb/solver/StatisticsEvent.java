@@ -0,0 +1,57 @@
+package sb.solver;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Label;
+
+/**
+ * The fields of a flight recorder event that carries {@link SearchStatistics}
+ */
+@Category({"Sokobencho", "Solver"})
+abstract class StatisticsEvent extends jdk.jfr.Event {
+
+	@Label("Expanded Nodes")
+	long expandedNodes;
+
+	@Label("Nodes per Second")
+	double nodesPerSecond;
+
+	@Label("Table Hit Rate")
+	double tableHitRate;
+
+	@Label("Table Collision Rate")
+	double tableCollisionRate;
+
+	@Label("Open List Size")
+	long openListSize;
+
+	@Label("Heap per State")
+	@DataAmount
+	long heapBytesPerState;
+
+	@Label("Dead Square Prunes")
+	long deadSquarePrunes;
+
+	@Label("Freeze Prunes")
+	long freezePrunes;
+
+	@Label("Corral Prunes")
+	long corralPrunes;
+
+	@Label("Matching Prunes")
+	long matchingPrunes;
+
+	void setStatistics(SearchStatistics statistics) {
+
+		expandedNodes = statistics.getExpandedNodes();
+		nodesPerSecond = statistics.getNodesPerSecond();
+		tableHitRate = statistics.getTableHitRate();
+		tableCollisionRate = statistics.getTableCollisionRate();
+		openListSize = statistics.getFrontierSize();
+		heapBytesPerState = statistics.getHeapBytesPerState();
+		deadSquarePrunes = statistics.getPrunes(PruneRule.DEAD_SQUARE);
+		freezePrunes = statistics.getPrunes(PruneRule.FREEZE);
+		corralPrunes = statistics.getPrunes(PruneRule.CORRAL);
+		matchingPrunes = statistics.getPrunes(PruneRule.MATCHING);
+	}
+}
@@ -0,0 +1,35 @@
+package sb.solver;
+
+/**
+ * Counters of a table of states used by a search, for the statistics of a {@link SearchMonitor}
+ */
+interface TableStatistics {
+
+	/**
+	 * Returns the number of states looked up
+	 *
+	 * @return
+	 */
+	long getLookups();
+
+	/**
+	 * Returns the number of lookups that found the state
+	 *
+	 * @return
+	 */
+	long getHits();
+
+	/**
+	 * Returns the number of times a lookup or an insertion ran into the entry of another state
+	 *
+	 * @return
+	 */
+	long getCollisions();
+
+	/**
+	 * Returns the number of states stored
+	 *
+	 * @return
+	 */
+	long size();
+}
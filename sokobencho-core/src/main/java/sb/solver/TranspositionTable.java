@@ -0,0 +1,227 @@
+package sb.solver;
+
+/**
+ * A transposition table with a fixed memory footprint, keyed by a 64-bit hash of the state. For every state it
+ * remembers the iteration of the search it was last seen in, the number of pushes it was reached with and a lower
+ * bound of the pushes still needed to solve it.
+ * <p>
+ * Entries are stored in buckets of two slots, indexed by the low bits of the key. If both slots of a bucket are taken
+ * by other states, the entry that is worth less is replaced: entries of earlier iterations first, then the entry
+ * reached with more pushes, since it roots the smaller subtree. Lost entries only cost search time, never
+ * correctness. Different states with equal 64-bit keys are not told apart.
+ */
+class TranspositionTable implements TableStatistics {
+
+	/**
+	 * Bytes per entry: one long for the key and one for the packed data
+	 */
+	static final int ENTRY_SIZE = 16;
+
+	private static final int DEPTH_BITS = 16;
+
+	private static final int BOUND_BITS = 24;
+
+	private static final long DEPTH_MASK = (1L << DEPTH_BITS) - 1;
+
+	private static final long BOUND_MASK = (1L << BOUND_BITS) - 1;
+
+	/**
+	 * The keys of the entries
+	 */
+	private final long[] keys;
+
+	/**
+	 * The data of the entries: iteration, bound and depth packed from the high to the low bits. Zero for free slots.
+	 */
+	private final long[] data;
+
+	/**
+	 * Selects the bucket of a key
+	 */
+	private final int mask;
+
+	/**
+	 * Number of slots in use
+	 */
+	private int size;
+
+	/**
+	 * Index of the slot found by the latest call of {@link #find(long)}
+	 */
+	private int found;
+
+	/**
+	 * Number of lookups, of the lookups that found their entry and of entries replaced by other states, for the
+	 * statistics
+	 */
+	private long lookups;
+
+	private long hits;
+
+	private long collisions;
+
+	/**
+	 * Creates a table that uses at most the given number of megabytes, rounded down to a power of two entries.
+	 *
+	 * @param megabytes
+	 */
+	TranspositionTable(int megabytes) {
+
+		if (megabytes <= 0) {
+			throw new IllegalArgumentException("The table needs at least one megabyte");
+		}
+		long entries = Long.highestOneBit((long) megabytes * 1024 * 1024 / ENTRY_SIZE);
+		int capacity = (int) Math.min(entries, 1 << 30);
+		this.keys = new long[capacity];
+		this.data = new long[capacity];
+		this.mask = (capacity - 1) & ~1;
+	}
+
+	/**
+	 * Looks up the entry of the given key. The other getters refer to this entry afterwards.
+	 *
+	 * @param key
+	 * @return True, if there is an entry for the key
+	 */
+	boolean find(long key) {
+
+		lookups++;
+		int bucket = bucket(key);
+		for (int slot = bucket; slot < bucket + 2; slot++) {
+			if (data[slot] != 0 && keys[slot] == key) {
+				found = slot;
+				hits++;
+				return true;
+			}
+		}
+		return false;
+	}
+
+	int getIteration() {
+
+		return (int) (data[found] >>> (DEPTH_BITS + BOUND_BITS));
+	}
+
+	int getBound() {
+
+		return (int) ((data[found] >>> DEPTH_BITS) & BOUND_MASK);
+	}
+
+	int getDepth() {
+
+		return (int) (data[found] & DEPTH_MASK);
+	}
+
+	/**
+	 * Stores an entry for the given key, replacing the existing entry of the key or the less valuable entry of its
+	 * bucket.
+	 *
+	 * @param key
+	 * @param iteration Positive number of the current search iteration
+	 * @param bound     Lower bound of the pushes still needed
+	 * @param depth     Number of pushes the state was reached with
+	 */
+	void store(long key, int iteration, int bound, int depth) {
+
+		int slot;
+		if (find(key)) {
+			slot = found;
+		} else {
+			int bucket = bucket(key);
+			if (data[bucket] == 0) {
+				slot = bucket;
+			} else if (data[bucket + 1] == 0) {
+				slot = bucket + 1;
+			} else {
+				slot = isWorthLess(bucket, bucket + 1) ? bucket : bucket + 1;
+				collisions++;
+			}
+		}
+
+		if (data[slot] == 0) {
+			size++;
+		}
+		keys[slot] = key;
+		data[slot] = ((long) iteration << (DEPTH_BITS + BOUND_BITS)) | (Math.min(bound, BOUND_MASK) << DEPTH_BITS) | Math.min(depth, DEPTH_MASK);
+	}
+
+	/**
+	 * Is the entry of the first slot worth less than the entry of the second one?
+	 *
+	 * @param slot
+	 * @param other
+	 * @return
+	 */
+	private boolean isWorthLess(int slot, int other) {
+
+		long iteration = data[slot] >>> (DEPTH_BITS + BOUND_BITS);
+		long otherIteration = data[other] >>> (DEPTH_BITS + BOUND_BITS);
+		if (iteration != otherIteration) {
+			return iteration < otherIteration;
+		}
+		return (data[slot] & DEPTH_MASK) > (data[other] & DEPTH_MASK);
+	}
+
+	private int bucket(long key) {
+
+		return (int) key & mask;
+	}
+
+	int getCapacity() {
+
+		return keys.length;
+	}
+
+	@Override public long size() {
+
+		return size;
+	}
+
+	@Override public long getLookups() {
+
+		return lookups;
+	}
+
+	@Override public long getHits() {
+
+		return hits;
+	}
+
+	/**
+	 * Returns the number of entries replaced by other states because their bucket was full
+	 *
+	 * @return
+	 */
+	@Override public long getCollisions() {
+
+		return collisions;
+	}
+
+	/**
+	 * Returns a 64-bit hash of a state (see {@link sb.model.bitboard.BitboardLevel#exportState(long[])}).
+	 *
+	 * @param state
+	 * @return
+	 */
+	static long key(long[] state) {
+
+		long h = 0;
+		for (long word : state) {
+			h = mix(h ^ word) + 0x9e3779b97f4a7c15L;
+		}
+		return mix(h);
+	}
+
+	/**
+	 * The SplitMix64 finalizer
+	 *
+	 * @param z
+	 * @return
+	 */
+	private static long mix(long z) {
+
+		z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+		z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+		return z ^ (z >>> 31);
+	}
+}
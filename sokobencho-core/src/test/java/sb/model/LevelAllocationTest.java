@@ -0,0 +1,66 @@
+package sb.model;
+
+import junit.framework.TestCase;
+import sb.model.misc.Direction;
+
+import java.lang.management.ManagementFactory;
+import java.util.Random;
+
+/**
+ * Checks that moving the player does not allocate, so long replays and searches do not churn the heap.
+ */
+public class LevelAllocationTest extends TestCase {
+
+	private static final int MOVES = 1 << 16;
+
+	private static final int WARM_UP_ROUNDS = 20;
+
+	private static final Direction[] DIRECTIONS = {Direction.N, Direction.O, Direction.S, Direction.W};
+
+	public void testMovePlayerDoesNotAllocate() {
+
+		if (!(ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean)) {
+			System.out.println("Skipped, the JVM cannot measure allocations of threads");
+			return;
+		}
+		com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+		if (!threads.isThreadAllocatedMemorySupported()) {
+			System.out.println("Skipped, the JVM cannot measure allocations of threads");
+			return;
+		}
+		threads.setThreadAllocatedMemoryEnabled(true);
+		long threadId = Thread.currentThread().getId();
+
+		// The same random walk for every level, drawn before measuring
+		Random random = new Random(42);
+		Direction[] moves = new Direction[MOVES];
+		for (int i = 0; i < MOVES; i++) {
+			moves[i] = DIRECTIONS[random.nextInt(DIRECTIONS.length)];
+		}
+
+		Level level = new Level();
+		for (int levelNumber = 1; levelNumber <= level.getLevelCount(); levelNumber++) {
+			level.selectLevel(levelNumber);
+			assertEquals("Level " + levelNumber + " could not be read", levelNumber, level.getCurrentLevelIndex());
+			for (int round = 0; round < WARM_UP_ROUNDS; round++) {
+				walk(level, moves);
+			}
+
+			// Reading the counter may allocate itself, which must not be taken for allocations of the moves
+			long overhead = threads.getThreadAllocatedBytes(threadId);
+			overhead = threads.getThreadAllocatedBytes(threadId) - overhead;
+
+			long before = threads.getThreadAllocatedBytes(threadId);
+			walk(level, moves);
+			long allocated = threads.getThreadAllocatedBytes(threadId) - before - overhead;
+			assertEquals("Bytes allocated by " + MOVES + " moves in level " + levelNumber, 0, allocated);
+		}
+	}
+
+	private static void walk(Level level, Direction[] moves) {
+
+		for (int i = 0; i < moves.length; i++) {
+			level.movePlayer(moves[i]);
+		}
+	}
+}
@@ -1,6 +1,6 @@
 package sb.controller;
 
-import sb.model.Level;
+import sb.model.AdvancedTileBoardModel;
 import sb.model.misc.Direction;
 import sb.model.misc.Vector;
 
@@ -12,7 +12,7 @@ public class SokobenchoController implements AdvancedTileBoardController {
 	/**
 	 * The game model
 	 */
-	private Level model;
+	private AdvancedTileBoardModel<?, ?> model;
 
 	/**
 	 * Is the level finished?
@@ -24,7 +24,7 @@ public class SokobenchoController implements AdvancedTileBoardController {
 	 */
 	private boolean ignoreNextMovement;
 
-	public SokobenchoController(Level model) {
+	public SokobenchoController(AdvancedTileBoardModel<?, ?> model) {
 
 		this.model = model;
 		finished = false;
@@ -10,6 +10,7 @@ import javafx.scene.input.MouseEvent;
 import javafx.scene.layout.Region;
 import javafx.scene.text.Text;
 import sb.controller.AdvancedTileBoardController;
+import sb.model.AdvancedTileBoardListener;
 import sb.model.AdvancedTileBoardModel;
 import sb.model.misc.Direction;
 import sb.model.misc.Vector;
@@ -22,7 +23,7 @@ import java.util.List;
 /**
  * A view for sokobencho displaying the game with JavaFX
  */
-public class SokobenchoView extends Region implements AdvancedTileBoardView {
+public class SokobenchoView extends Region implements AdvancedTileBoardListener {
 
 	/**
 	 * The width and height of the square tiles
@@ -90,7 +91,7 @@ public class SokobenchoView extends Region implements AdvancedTileBoardView {
 		this.model = model;
 		this.controller = controller;
 
-		model.registerView(this);
+		model.registerListener(this);
 		setOnKeyPressed(new KeyPressedHandler());
 		setOnMouseClicked(new MouseClickedHandler());
 	}